@@ -0,0 +1,35 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package benchmarks;
+
+import model.Supermarket;
+import utilities.SupermarketStreamLoader;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Generated supermarket files shared by all benchmarks. The directory can be changed with -Dbenchmark.data=...
+ */
+final class BenchmarkData {
+    static final String DEFAULT_DIRECTORY = "target/benchmark-data";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @return path of the file with the number of customers, generated when it doesn't exist yet
+     */
+    static Path file(int customers) {
+        Path directory = Paths.get(System.getProperty("benchmark.data", DEFAULT_DIRECTORY));
+        return new SupermarketDataGenerator().generate(directory, customers);
+    }
+
+    static Supermarket load(int customers) {
+        return new SupermarketStreamLoader(file(customers).toString()).load();
+    }
+}
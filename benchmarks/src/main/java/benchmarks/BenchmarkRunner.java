@@ -0,0 +1,44 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the benchmarks in throughput and average time mode with the GC profiler for the allocation rate.
+ * Takes the normal JMH command line options, for example "java -jar target/benchmarks.jar Query -p customers=10000".
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include("benchmarks\\..*Benchmark");
+        }
+        if (commandLine.getBenchModes().isEmpty()) {
+            builder.mode(Mode.Throughput).mode(Mode.AverageTime);
+        }
+        if (commandLine.getProfilers().isEmpty()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getTimeUnit().hasValue()) {
+            builder.timeUnit(TimeUnit.MICROSECONDS);
+        }
+        Options options = builder.parent(commandLine).build();
+        new Runner(options).run();
+    }
+}
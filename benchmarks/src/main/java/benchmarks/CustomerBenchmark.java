@@ -0,0 +1,64 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package benchmarks;
+
+import model.Customer;
+import model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalTime;
+
+/**
+ * Cart operations of a single customer with a cart of the usual size.
+ */
+@State(Scope.Thread)
+@Fork(1)
+public class CustomerBenchmark {
+    private static final int CART_SIZE = 8;
+
+    private Product[] products;
+    private Customer customer;
+
+    @Setup(Level.Trial)
+    public void fillCart() {
+        products = BenchmarkData.load(10_000).getProducts().stream().sorted().limit(CART_SIZE).toArray(Product[]::new);
+        customer = new Customer(LocalTime.NOON, "1015DM");
+        for (int i = 0; i < products.length; i++) {
+            customer.addToCart(products[i], i + 1);
+        }
+    }
+
+    @Benchmark
+    public double calculateTotalBill() {
+        return customer.calculateTotalBill();
+    }
+
+    @Benchmark
+    public long calculateTotalBillInCents() {
+        return customer.calculateTotalBillInCents();
+    }
+
+    @Benchmark
+    public int getNumberOfItems() {
+        return customer.getNumberOfItems();
+    }
+
+    @Benchmark
+    public Customer addToCart() {
+        Customer filling = new Customer(LocalTime.NOON, "1015DM");
+        for (int i = 0; i < products.length; i++) {
+            filling.addToCart(products[i], i + 1);
+        }
+        filling.addToCart(products[0], 1); // Existing product, only the amount changes.
+        return filling;
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package benchmarks;
+
+import model.Supermarket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import utilities.LazySupermarket;
+import utilities.ParallelSupermarketLoader;
+import utilities.SupermarketBuilder;
+import utilities.SupermarketSnapshot;
+import utilities.SupermarketStreamLoader;
+
+/**
+ * Parses a whole supermarket file with each of the loaders. The lazy benchmarks index the file
+ * and answer one query, compare them with loading the file and answering the same query.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class LoadBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int customers;
+
+    private String filename;
+    private String snapshotFilename;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        filename = BenchmarkData.file(customers).toString();
+        snapshotFilename = filename + ".snapshot";
+        new SupermarketSnapshot(snapshotFilename).write(new SupermarketStreamLoader(filename).load());
+    }
+
+    @Benchmark
+    public Supermarket builder() {
+        return new SupermarketBuilder(filename).initializeSupermarket().addProducts().addCustomers().create();
+    }
+
+    @Benchmark
+    public Supermarket streamLoader() {
+        return new SupermarketStreamLoader(filename).load();
+    }
+
+    @Benchmark
+    public Supermarket parallelLoader() {
+        return new ParallelSupermarketLoader(filename).load();
+    }
+
+    @Benchmark
+    public Supermarket snapshot() {
+        return new SupermarketSnapshot(snapshotFilename).load();
+    }
+
+    @Benchmark
+    public long streamLoaderRevenue() {
+        return new SupermarketStreamLoader(filename).load().findTotalRevenueInCents();
+    }
+
+    @Benchmark
+    public long lazyRevenue() {
+        return LazySupermarket.open(filename).findTotalRevenueInCents();
+    }
+
+    @Benchmark
+    public Object lazyMostPayingCustomer() {
+        return LazySupermarket.open(filename).findMostPayingCustomer();
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package benchmarks;
+
+import model.Customer;
+import model.Product;
+import model.Supermarket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Every report query of the Supermarket. With cache "warm" the statistics are reused between calls, with "cold"
+ * the customers change before every call, so every call pays for a full aggregation.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class QueryBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int customers;
+
+    @Param({"warm", "cold"})
+    public String cache;
+
+    @Param({"sequential", "parallel", "columnar"})
+    public String engine;
+
+    private Supermarket supermarket;
+    private Customer changed;
+
+    @Setup(Level.Trial)
+    public void load() {
+        supermarket = BenchmarkData.load(customers);
+        if (engine.equals("parallel")) {
+            supermarket.setParallelism(Runtime.getRuntime().availableProcessors());
+        }
+        supermarket.useColumnarStore(engine.equals("columnar"));
+        changed = supermarket.getCustomers().iterator().next();
+    }
+
+    @Setup(Level.Invocation)
+    public void change() {
+        if (cache.equals("cold")) { // Removing and adding a customer gives the same customers in a new version.
+            supermarket.getCustomers().remove(changed);
+            supermarket.getCustomers().add(changed);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        supermarket.setParallelism(1);
+    }
+
+    @Benchmark
+    public Map<Product, Integer> findNumberOfProductsBought() {
+        return supermarket.findNumberOfProductsBought();
+    }
+
+    @Benchmark
+    public Map<Product, Set<String>> findZipcodesPerProduct() {
+        return supermarket.findZipcodesPerProduct();
+    }
+
+    @Benchmark
+    public Map<String, Map<Product, Integer>> findNumberOfProductsByZipcode() {
+        return supermarket.findNumberOfProductsByZipcode();
+    }
+
+    @Benchmark
+    public double findHighestBill() {
+        return supermarket.findHighestBill();
+    }
+
+    @Benchmark
+    public Customer findMostPayingCustomer() {
+        return supermarket.findMostPayingCustomer();
+    }
+
+    @Benchmark
+    public List<Customer> findTopPayingCustomers() {
+        return supermarket.findTopPayingCustomers(10);
+    }
+
+    @Benchmark
+    public double findBillPercentile() {
+        return supermarket.findBillPercentile(90.0);
+    }
+
+    @Benchmark
+    public double findTotalRevenue() {
+        return supermarket.findTotalRevenue();
+    }
+
+    @Benchmark
+    public double findAverageRevenue() {
+        return supermarket.findAverageRevenue();
+    }
+
+    @Benchmark
+    public Map<String, Double> getRevenueByZipcode() {
+        return supermarket.getRevenueByZipcode();
+    }
+
+    @Benchmark
+    public Set<Product> findMostPopularProducts() {
+        return supermarket.findMostPopularProducts();
+    }
+
+    @Benchmark
+    public Map<String, Product> findMostBoughtProductByZipcode() {
+        return supermarket.findMostBoughtProductByZipcode();
+    }
+
+    @Benchmark
+    public int getTotalNumberOfItems() {
+        return supermarket.getTotalNumberOfItems();
+    }
+}
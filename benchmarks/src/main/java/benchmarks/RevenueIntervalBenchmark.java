@@ -0,0 +1,59 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package benchmarks;
+
+import model.Customer;
+import model.Supermarket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalTime;
+import java.util.Map;
+
+/**
+ * Revenue per interval at several interval widths. With cache "cold" the revenue timeline is rebuilt for every call.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class RevenueIntervalBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int customers;
+
+    @Param({"1", "5", "15", "60"})
+    public int minutes;
+
+    @Param({"warm", "cold"})
+    public String cache;
+
+    private Supermarket supermarket;
+    private Customer changed;
+
+    @Setup(Level.Trial)
+    public void load() {
+        supermarket = BenchmarkData.load(customers);
+        changed = supermarket.getCustomers().iterator().next();
+    }
+
+    @Setup(Level.Invocation)
+    public void change() {
+        if (cache.equals("cold")) {
+            supermarket.getCustomers().remove(changed);
+            supermarket.getCustomers().add(changed);
+        }
+    }
+
+    @Benchmark
+    public Map<LocalTime, Double> calculateRevenuePerInterval() {
+        return supermarket.calculateRevenuePerInterval(minutes);
+    }
+}
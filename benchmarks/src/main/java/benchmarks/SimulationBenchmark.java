@@ -0,0 +1,49 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import simulation.CashierModel;
+import simulation.CheckoutSimulation;
+import simulation.CheckoutWorkload;
+import simulation.SimulationResult;
+
+/**
+ * Check-out simulation of all customers of a file, the score divided by the number of customers gives customers per second.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SimulationBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int customers;
+
+    @Param({"4", "64"})
+    public int cashiers;
+
+    private CheckoutWorkload workload;
+    private CheckoutSimulation simulation;
+
+    @Setup(Level.Trial)
+    public void load() {
+        workload = new CheckoutWorkload(BenchmarkData.load(customers));
+        simulation = new CheckoutSimulation()
+                .addCashiers(new CashierModel("express", 1.5, 20.0, 10), Math.max(1, cashiers / 4))
+                .addCashiers(new CashierModel("regular", 2.0, 30.0), cashiers - Math.max(1, cashiers / 4));
+    }
+
+    @Benchmark
+    public SimulationResult run() {
+        return simulation.run(workload);
+    }
+}
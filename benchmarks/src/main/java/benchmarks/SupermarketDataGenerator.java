@@ -0,0 +1,166 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Writes synthetic supermarket files in the format of jambiBigJson.txt with any number of customers.
+ * The supermarket and its products are copied from jambiBigJson.txt, the customers are random but the same for
+ * the same number of customers. Arrival times are unique (with fractions of a second for big files), spread over
+ * the opening hours and written in random order, like in the real files.
+ */
+public class SupermarketDataGenerator {
+    private static final String TEMPLATE = "/jambiBigJson.txt";
+    private static final long SEED = 500721202L;
+    private static final int MAX_CART_SIZE = 8;
+    private static final int MAX_AMOUNT = 12;
+    private static final int ZIPCODE_LETTERS = 6; // zip codes 1010AA until 1099FF, 3240 in total
+
+    private final String supermarketLine;
+    private final List<String> productLines = new ArrayList<>();
+    private final long openNanos;
+    private final long closingNanos;
+
+    public SupermarketDataGenerator() {
+        try (InputStream input = SupermarketDataGenerator.class.getResourceAsStream(TEMPLATE)) {
+            if (input == null) {
+                throw new IllegalStateException(TEMPLATE + " is not on the class path");
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            reader.readLine(); // Supermarket
+            supermarketLine = reader.readLine();
+            reader.readLine(); // Products
+            for (String line = reader.readLine(); line != null && !line.trim().equals("Customers"); line = reader.readLine()) {
+                productLines.add(line.trim());
+            }
+        } catch (IOException readError) {
+            throw new UncheckedIOException(readError);
+        }
+        openNanos = LocalTime.parse(field(supermarketLine, "openTime")).toNanoOfDay();
+        closingNanos = LocalTime.parse(field(supermarketLine, "closingTime")).toNanoOfDay();
+    }
+
+    /**
+     * writes a file with the number of customers, or reuses the file when it was generated before
+     * @return path of the file
+     */
+    public Path generate(Path directory, int customers) {
+        Path file = directory.resolve("supermarket" + customers + ".txt");
+        if (Files.exists(file)) {
+            return file;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, "supermarket", ".tmp");
+            try (Writer writer = new BufferedWriter(Files.newBufferedWriter(temporary, StandardCharsets.UTF_8), 1 << 16)) {
+                write(writer, customers);
+            }
+            Files.move(temporary, file); // Only complete files get the final name.
+        } catch (IOException writeError) {
+            throw new UncheckedIOException(writeError);
+        }
+        return file;
+    }
+
+    private void write(Writer writer, int customers) throws IOException {
+        writer.write("Supermarket\n");
+        writer.write(supermarketLine + "\n");
+        writer.write("Products\n");
+        for (String product : productLines) {
+            writer.write(product + "\n");
+        }
+        writer.write("Customers\n");
+
+        Random random = new Random(SEED + customers);
+        int[] order = new int[customers];
+        for (int i = 0; i < customers; i++) {
+            order[i] = i;
+        }
+        for (int i = customers - 1; i > 0; i--) {
+            int other = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[other];
+            order[other] = swap;
+        }
+
+        long step = Math.max(1, (closingNanos - openNanos) / Math.max(1, customers));
+        boolean wholeSeconds = step >= 1_000_000_000L;
+        StringBuilder line = new StringBuilder(512);
+        int[] cart = new int[productLines.size()];
+        for (int i = 0; i < customers; i++) {
+            long arrival = openNanos + order[i] * step;
+            if (wholeSeconds) {
+                arrival -= arrival % 1_000_000_000L;
+            }
+            line.setLength(0);
+            line.append("{\"queuedAt\":\"").append(LocalTime.ofNanoOfDay(arrival).format(DateTimeFormatter.ISO_LOCAL_TIME))
+                    .append("\",\"zipCode\":\"10").append(10 + random.nextInt(90))
+                    .append((char) ('A' + random.nextInt(ZIPCODE_LETTERS))).append((char) ('A' + random.nextInt(ZIPCODE_LETTERS)))
+                    .append("\",\"itemsCart\":[");
+            int cartSize = pickProducts(random, cart);
+            for (int item = 0; item < cartSize; item++) {
+                if (item > 0) {
+                    line.append(',');
+                }
+                line.append('[').append(productLines.get(cart[item])).append(',').append(1 + random.nextInt(MAX_AMOUNT)).append(']');
+            }
+            line.append("],\"actualWaitingTime\":0,\"actualCheckOutTime\":0}\n");
+            writer.append(line);
+        }
+    }
+
+    /**
+     * picks distinct random products for a cart
+     * @return number of products, the product indexes are at the start of cart
+     */
+    private int pickProducts(Random random, int[] cart) {
+        for (int i = 0; i < cart.length; i++) {
+            cart[i] = i;
+        }
+        int cartSize = 1 + random.nextInt(Math.min(MAX_CART_SIZE, cart.length));
+        for (int i = 0; i < cartSize; i++) {
+            int other = i + random.nextInt(cart.length - i);
+            int swap = cart[i];
+            cart[i] = cart[other];
+            cart[other] = swap;
+        }
+        return cartSize;
+    }
+
+    private static String field(String json, String name) {
+        int start = json.indexOf("\"" + name + "\":\"") + name.length() + 4;
+        return json.substring(start, json.indexOf('"', start));
+    }
+
+    /**
+     * generates files for the benchmarks, by default with 10K, 1M and 10M customers in target/benchmark-data
+     */
+    public static void main(String[] args) {
+        Path directory = Paths.get(args.length > 0 ? args[0] : BenchmarkData.DEFAULT_DIRECTORY);
+        SupermarketDataGenerator generator = new SupermarketDataGenerator();
+        String[] sizes = args.length > 1 ? args[1].split(",") : new String[]{"10000", "1000000", "10000000"};
+        for (String size : sizes) {
+            System.out.println(generator.generate(directory, Integer.parseInt(size.trim())));
+        }
+    }
+}
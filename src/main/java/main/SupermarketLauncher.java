@@ -7,13 +7,16 @@
 package main;
 
 import model.Supermarket;
-import utilities.SupermarketBuilder;
+import utilities.SupermarketStreamLoader;
 
 public class SupermarketLauncher {
 
     public static void main(String[] args) {
         String supermarketFile = "src/main/resources/jambiBigJson.txt";
-        Supermarket supermarket = new SupermarketBuilder(supermarketFile).initializeSupermarket().addProducts().addCustomers().create();
+        Supermarket supermarket = new SupermarketStreamLoader(supermarketFile).load();
+        if (supermarket == null) {
+            return; // The loader already told what went wrong.
+        }
 
         supermarket.printCustomerStatistics();
         supermarket.printProductStatistics();
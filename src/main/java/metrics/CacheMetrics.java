@@ -0,0 +1,60 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hits and misses of a cache, only counted while metrics are enabled.
+ */
+public final class CacheMetrics {
+    private final String name;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    CacheMetrics(String name) {
+        this.name = name;
+    }
+
+    public void hit() {
+        if (Metrics.enabled) {
+            hits.increment();
+        }
+    }
+
+    public void miss() {
+        if (Metrics.enabled) {
+            misses.increment();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return fraction of the lookups that were hits, 0 without lookups
+     */
+    public double getHitRate() {
+        long hitCount = getHits();
+        long lookups = hitCount + getMisses();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    void reset() {
+        hits.reset();
+        misses.reset();
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count that many threads can add to without contention, only counts while metrics are enabled.
+ */
+public final class Counter {
+    private final String name;
+    private final LongAdder count = new LongAdder();
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+    public void increment() {
+        if (Metrics.enabled) {
+            count.increment();
+        }
+    }
+
+    public void add(long amount) {
+        if (Metrics.enabled) {
+            count.add(amount);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    void reset() {
+        count.reset();
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with log-linear buckets, like an HDR histogram: every power of two is split
+ * in 64 buckets, so any recorded value is known within about 1.6% and the whole histogram is a fixed array of counts.
+ * Recording is one atomic increment, percentiles are read while other threads keep recording.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;        // values below this have a bucket of their own
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;        // buckets per power of two above that
+
+    private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1; // value >> shift is in [HALF_SUB_BUCKETS, SUB_BUCKETS)
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (value >> shift) - HALF_SUB_BUCKETS;
+    }
+
+    /**
+     * @return highest value that falls in the bucket
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long mantissa = (bucket - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return total.sum();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    public double getMeanNanos() {
+        long recorded = getCount();
+        return recorded == 0 ? 0 : (double) getTotalNanos() / recorded;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the value that percentile percent of the recorded values are at or below (nearest rank), 0 when empty
+     */
+    public long getPercentileNanos(double percentile) {
+        long recorded = 0;
+        for (int bucket = 0; bucket < counts.length(); bucket++) {
+            recorded += counts.get(bucket);
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length() && recorded > 0; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(bucket), getMaxNanos());
+            }
+        }
+        return 0;
+    }
+
+    void reset() {
+        for (int bucket = 0; bucket < counts.length(); bucket++) {
+            counts.set(bucket, 0);
+        }
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+}
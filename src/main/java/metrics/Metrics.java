@@ -0,0 +1,135 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Registry of all counters, timers and cache metrics. Metrics are created once (usually as static fields) and
+ * only record while metrics are enabled, so a disabled metric costs one volatile read. Metrics are off by default,
+ * enable them with setEnabled or with -Dsupermarket.metrics=true.
+ */
+public final class Metrics {
+    public static final String OBJECT_NAME = "supermarket:type=Metrics";
+
+    static volatile boolean enabled = Boolean.getBoolean("supermarket.metrics");
+
+    private static final Map<String, Counter> counters = new ConcurrentSkipListMap<>();    // sorted by name for the dumps
+    private static final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+    private static final Map<String, CacheMetrics> caches = new ConcurrentSkipListMap<>();
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * @return the counter with the name, created when it doesn't exist yet
+     */
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    /**
+     * @return the timer with the name, created when it doesn't exist yet
+     */
+    public static Timer timer(String name) {
+        return timers.computeIfAbsent(name, Timer::new);
+    }
+
+    /**
+     * @return the hit and miss counters of the cache with the name, created when they don't exist yet
+     */
+    public static CacheMetrics cache(String name) {
+        return caches.computeIfAbsent(name, CacheMetrics::new);
+    }
+
+    public static Map<String, Counter> getCounters() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    public static Map<String, Timer> getTimers() {
+        return Collections.unmodifiableMap(timers);
+    }
+
+    public static Map<String, CacheMetrics> getCaches() {
+        return Collections.unmodifiableMap(caches);
+    }
+
+    /**
+     * sets all metrics back to zero, the metrics themselves stay registered
+     */
+    public static void reset() {
+        counters.values().forEach(Counter::reset);
+        timers.values().forEach(Timer::reset);
+        caches.values().forEach(CacheMetrics::reset);
+    }
+
+    /**
+     * @return bytes allocated by the current thread so far, -1 when disabled or when the JVM can't tell.
+     * The difference of two calls estimates the allocation of the work in between.
+     */
+    public static long allocatedBytes() {
+        if (!enabled || !(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * adds the bytes allocated by the current thread since allocatedBefore to the counter
+     */
+    public static void addAllocatedBytes(Counter counter, long allocatedBefore) {
+        if (allocatedBefore >= 0) {
+            long allocatedAfter = allocatedBytes();
+            if (allocatedAfter >= allocatedBefore) {
+                counter.add(allocatedAfter - allocatedBefore);
+            }
+        }
+    }
+
+    /**
+     * registers all metrics as attributes of one MBean, under OBJECT_NAME on the platform MBean server
+     * @return name of the MBean
+     */
+    public static ObjectName registerMBean() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (!server.isRegistered(name)) {
+            server.registerMBean(new MetricsMBean(), name);
+        }
+        return name;
+    }
+
+    /**
+     * @return all metrics as text, one metric per line
+     */
+    public static String toText() {
+        return MetricsFormat.text(counters, timers, caches);
+    }
+
+    /**
+     * @return all metrics as one JSON object
+     */
+    public static String toJson() {
+        return MetricsFormat.json(counters, timers, caches);
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Turns the metrics into one flat list of named values, shared by the text dump, the JSON dump and the MBean.
+ * A timer gives its count, mean, percentiles, max and total, a cache its hits, misses and hit rate.
+ * A counter named after a timer plus a suffix, like loader.stream.records for the timer loader.stream,
+ * also gets a rate per second of timed work, like loader.stream.recordsPerSecond.
+ */
+final class MetricsFormat {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    private MetricsFormat() {
+    }
+
+    static Map<String, Number> values(Map<String, Counter> counters, Map<String, Timer> timers, Map<String, CacheMetrics> caches) {
+        Map<String, Number> values = new TreeMap<>();
+        counters.forEach((name, counter) -> {
+            values.put(name, counter.getCount());
+            int suffix = name.lastIndexOf('.');
+            Timer timer = suffix < 0 ? null : timers.get(name.substring(0, suffix));
+            if (timer != null && timer.getHistogram().getTotalNanos() > 0) {
+                values.put(name + "PerSecond", counter.getCount() * 1e9 / timer.getHistogram().getTotalNanos());
+            }
+        });
+        timers.forEach((name, timer) -> {
+            LatencyHistogram histogram = timer.getHistogram();
+            values.put(name + ".count", histogram.getCount());
+            values.put(name + ".meanNanos", histogram.getMeanNanos());
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                values.put(name + "." + PERCENTILE_NAMES[i] + "Nanos", histogram.getPercentileNanos(PERCENTILES[i]));
+            }
+            values.put(name + ".maxNanos", histogram.getMaxNanos());
+            values.put(name + ".totalNanos", histogram.getTotalNanos());
+        });
+        caches.forEach((name, cache) -> {
+            values.put(name + ".hits", cache.getHits());
+            values.put(name + ".misses", cache.getMisses());
+            values.put(name + ".hitRate", cache.getHitRate());
+        });
+        return values;
+    }
+
+    static String text(Map<String, Counter> counters, Map<String, Timer> timers, Map<String, CacheMetrics> caches) {
+        StringBuilder text = new StringBuilder();
+        values(counters, timers, caches).forEach((name, value) -> text.append(name).append(' ').append(format(value)).append('\n'));
+        return text.toString();
+    }
+
+    static String json(Map<String, Counter> counters, Map<String, Timer> timers, Map<String, CacheMetrics> caches) {
+        StringBuilder json = new StringBuilder("{");
+        values(counters, timers, caches).forEach((name, value) -> {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append('"').append(name.replace("\\", "\\\\").replace("\"", "\\\"")).append("\":").append(format(value));
+        });
+        return json.append('}').toString();
+    }
+
+    private static String format(Number value) {
+        if (value instanceof Double) {
+            double number = value.doubleValue();
+            return Double.isFinite(number) ? String.format(Locale.ROOT, "%.3f", number) : "0";
+        }
+        return value.toString();
+    }
+}
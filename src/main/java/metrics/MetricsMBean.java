@@ -0,0 +1,102 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MBean with every metric value as a read-only attribute. The attributes follow the registry,
+ * so metrics that are created after registration show up as well. The operations reset the metrics and switch them on or off.
+ */
+final class MetricsMBean implements DynamicMBean {
+
+    private static Map<String, Number> values() {
+        return MetricsFormat.values(Metrics.getCounters(), Metrics.getTimers(), Metrics.getCaches());
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        if (attribute.equals("Enabled")) {
+            return Metrics.isEnabled();
+        }
+        Number value = values().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        if (!attribute.getName().equals("Enabled")) {
+            throw new AttributeNotFoundException("Only Enabled can be set: " + attribute.getName());
+        }
+        Metrics.setEnabled((Boolean) attribute.getValue());
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Number> values = values();
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            if (attribute.equals("Enabled")) {
+                list.add(new Attribute(attribute, Metrics.isEnabled()));
+            } else if (values.containsKey(attribute)) {
+                list.add(new Attribute(attribute, values.get(attribute)));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        AttributeList set = new AttributeList();
+        for (Attribute attribute : attributes.asList()) {
+            try {
+                setAttribute(attribute);
+                set.add(attribute);
+            } catch (AttributeNotFoundException | ClassCastException ignored) {
+                // Attributes that can't be set are left out of the result, as the DynamicMBean contract asks.
+            }
+        }
+        return set;
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        switch (actionName) {
+            case "reset": Metrics.reset(); return null;
+            case "toText": return Metrics.toText();
+            case "toJson": return Metrics.toJson();
+            default: throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        attributes.add(new MBeanAttributeInfo("Enabled", "boolean", "Whether metrics are recorded", true, true, true));
+        values().forEach((name, value) -> attributes.add(new MBeanAttributeInfo(name, value.getClass().getName(), name, true, false, false)));
+        MBeanOperationInfo[] operations = {
+                new MBeanOperationInfo("reset", "Sets all metrics to zero", null, "void", MBeanOperationInfo.ACTION),
+                new MBeanOperationInfo("toText", "All metrics as text", null, "java.lang.String", MBeanOperationInfo.INFO),
+                new MBeanOperationInfo("toJson", "All metrics as JSON", null, "java.lang.String", MBeanOperationInfo.INFO)
+        };
+        return new MBeanInfo(getClass().getName(), "Supermarket loader and query metrics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, operations, null);
+    }
+}
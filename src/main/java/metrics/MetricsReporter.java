@@ -0,0 +1,58 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package metrics;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Writes a dump of all metrics to a sink at a fixed period, on a daemon thread so it never keeps the JVM running.
+ * Close it to stop the dumps.
+ */
+public class MetricsReporter implements AutoCloseable {
+    private final Consumer<String> sink;
+    private final boolean json;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param sink receives every dump, for example System.out::println
+     * @param json true for a JSON object per dump, false for text with one metric per line
+     */
+    public MetricsReporter(Consumer<String> sink, boolean json) {
+        this.sink = sink;
+        this.json = json;
+    }
+
+    public synchronized MetricsReporter start(long period, TimeUnit unit) {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-reporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(this::report, period, period, unit);
+        }
+        return this;
+    }
+
+    /**
+     * writes one dump right away
+     */
+    public void report() {
+        sink.accept(json ? Metrics.toJson() : Metrics.toText());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package metrics;
+
+/**
+ * Times an operation into a latency histogram:
+ * <pre>
+ *     long start = TIMER.start();
+ *     try { ... } finally { TIMER.stop(start); }
+ * </pre>
+ * While metrics are disabled start doesn't read the clock and stop does nothing, nothing is allocated either way.
+ */
+public final class Timer {
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private final String name;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    Timer(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return start time to pass to stop
+     */
+    public long start() {
+        return Metrics.enabled ? System.nanoTime() : NOT_STARTED;
+    }
+
+    public void stop(long start) {
+        if (start != NOT_STARTED) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    void reset() {
+        histogram.reset();
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Order statistics over the bills of all customers. Bills are calculated and sorted once,
+ * after that the highest bill, the top paying customers and bill percentiles are simple array lookups.
+ * Customers that are added later are merged into a new index, without calculating the other bills again.
+ */
+public final class BillIndex {
+    private final Customer[] customersByBill;  // highest bill first, equal bills keep the order of the customers (queuedAt)
+    private final long[] sortedBills;          // all bills in cents, lowest first
+
+    BillIndex(Collection<Customer> customers) {
+        this(customers.toArray(new Customer[0]));
+    }
+
+    /**
+     * @param customers customers in queuedAt order
+     */
+    private BillIndex(Customer[] customers) {
+        long[] bills = new long[customers.length];
+        int[] order = new int[customers.length];
+        for (int i = 0; i < customers.length; i++) {
+            bills[i] = customers[i].calculateTotalBillInCents(); // Every bill is calculated only once.
+            order[i] = i;
+        }
+        sortByBill(order, bills);
+
+        customersByBill = new Customer[customers.length];
+        sortedBills = new long[customers.length];
+        for (int i = 0; i < customers.length; i++) {
+            customersByBill[i] = customers[order[i]];
+            sortedBills[customers.length - 1 - i] = bills[order[i]];
+        }
+    }
+
+    private BillIndex(Customer[] customersByBill, long[] sortedBills) {
+        this.customersByBill = customersByBill;
+        this.sortedBills = sortedBills;
+    }
+
+    /**
+     * merges customers that were added after this index was built into a new index, this index doesn't change.
+     * Only the bills of the added customers are calculated, the merge is O(size + added log added).
+     * @param added customers that aren't in this index yet, in any order
+     * @return index of the customers of both
+     */
+    BillIndex withCustomers(Collection<Customer> added) {
+        if (added.isEmpty()) {
+            return this;
+        }
+        Customer[] addedCustomers = added.toArray(new Customer[0]);
+        Arrays.sort(addedCustomers); // queuedAt order, so equal bills of the addition are in the right order.
+        BillIndex addition = new BillIndex(addedCustomers);
+
+        int size = size() + addition.size();
+        Customer[] mergedCustomers = new Customer[size];
+        long[] mergedBills = new long[size];
+        int left = 0;
+        int right = 0;
+        for (int rank = 0; rank < size; rank++) {
+            boolean takeRight = left == size() || (right < addition.size() && (addition.billAt(right) > billAt(left)
+                    || (addition.billAt(right) == billAt(left) && addition.customersByBill[right].compareTo(customersByBill[left]) < 0)));
+            if (takeRight) {
+                mergedBills[size - 1 - rank] = addition.billAt(right);
+                mergedCustomers[rank] = addition.customersByBill[right++];
+            } else {
+                mergedBills[size - 1 - rank] = billAt(left);
+                mergedCustomers[rank] = customersByBill[left++];
+            }
+        }
+        return new BillIndex(mergedCustomers, mergedBills);
+    }
+
+    /**
+     * @return bill of the customer at the rank, rank 0 has the highest bill
+     */
+    private long billAt(int rank) {
+        return sortedBills[sortedBills.length - 1 - rank];
+    }
+
+    /**
+     * stable merge sort of customer positions by bill, highest first, without an object per customer
+     */
+    private static void sortByBill(int[] order, long[] bills) {
+        int[] source = order;
+        int[] target = new int[order.length];
+        for (int width = 1; width < order.length; width *= 2) {
+            for (int from = 0; from < order.length; from += 2 * width) {
+                int middle = Math.min(from + width, order.length);
+                int to = Math.min(from + 2 * width, order.length);
+                int left = from;
+                int right = middle;
+                for (int i = from; i < to; i++) {
+                    if (right >= to || (left < middle && bills[source[left]] >= bills[source[right]])) {
+                        target[i] = source[left++];
+                    } else {
+                        target[i] = source[right++];
+                    }
+                }
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != order) {
+            System.arraycopy(source, 0, order, 0, order.length);
+        }
+    }
+
+    /**
+     * @return value of the highest bill, 0.0 without customers
+     */
+    public double getHighestBill() {
+        return Money.toEuros(getHighestBillInCents());
+    }
+
+    public long getHighestBillInCents() {
+        return sortedBills.length == 0 ? 0 : sortedBills[sortedBills.length - 1];
+    }
+
+    /**
+     * @return first customer with the highest bill, null without customers
+     */
+    public Customer getMostPayingCustomer() {
+        return customersByBill.length == 0 ? null : customersByBill[0];
+    }
+
+    /**
+     * @return at most number customers with the highest bills, highest bill first
+     */
+    public List<Customer> getTopPayingCustomers(int number) {
+        int size = Math.max(0, Math.min(number, customersByBill.length));
+        return Collections.unmodifiableList(new ArrayList<>(Arrays.asList(customersByBill).subList(0, size)));
+    }
+
+    /**
+     * finds the bill at a percentile with the nearest-rank method, so 50 gives the median and 100 the highest bill
+     * @return bill at the percentile, 0.0 without customers
+     */
+    public double getPercentile(double percentile) {
+        return Money.toEuros(getPercentileInCents(percentile));
+    }
+
+    public long getPercentileInCents(double percentile) {
+        if (percentile < 0.0 || percentile > 100.0) {
+            throw new IllegalArgumentException("Percentile should be between 0 and 100: " + percentile);
+        }
+        if (sortedBills.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sortedBills.length);
+        return sortedBills[Math.max(0, rank - 1)];
+    }
+
+    public int size() {
+        return sortedBills.length;
+    }
+}
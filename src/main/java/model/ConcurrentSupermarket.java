@@ -0,0 +1,235 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package model;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Supermarket that many tills can add customers to at the same time, while other threads query it.
+ * Customers are kept in a ConcurrentSkipListSet ordered by queuedAt, so duplicates are dropped like in the TreeSet
+ * of Supermarket. The totals are LongAdders. All other statistics are counted in stripes, every stripe is a
+ * StatisticsAggregator with its own lock, so tills on different threads rarely wait for each other and there is no global lock.
+ * A query takes a snapshot of every stripe and combines them. A customer is counted completely in one stripe or not at all,
+ * so a snapshot is never torn: its revenue per zip code always adds up to its total revenue. The combined statistics are
+ * kept until a stripe gets a new customer, so queries between additions only compare the customer count of every stripe.
+ */
+public class ConcurrentSupermarket {
+    private final String name;
+    private final LocalTime openTime;
+    private final LocalTime closingTime;
+    private final Map<String, Product> products = new ConcurrentHashMap<>();  // first product per code, like the HashSet of Supermarket
+    private final NavigableSet<Customer> customers = new ConcurrentSkipListSet<>();
+    private final LongAdder numberOfCustomers = new LongAdder();
+    private final LongAdder totalNumberOfItems = new LongAdder();
+    private final LongAdder totalRevenueInCents = new LongAdder();
+    private final Stripe[] stripes;
+    private volatile Combined combined;  // last combined statistics, null until the first query
+
+    public ConcurrentSupermarket(String name, LocalTime openTime, LocalTime closingTime) {
+        this(name, openTime, closingTime, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param stripes number of independent aggregates, about the number of threads that add customers
+     */
+    public ConcurrentSupermarket(String name, LocalTime openTime, LocalTime closingTime, int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Number of stripes should be at least 1: " + stripes);
+        }
+        this.name = name;
+        this.openTime = openTime;
+        this.closingTime = closingTime;
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * adds a product if there is no product with its code yet
+     * @return true if the product was added
+     */
+    public boolean addProduct(Product product) {
+        return products.putIfAbsent(product.getCode(), product) == null;
+    }
+
+    /**
+     * adds a complete customer, the cart shouldn't change after this, safe to call from any number of threads
+     * @return true if the customer was added, false if there already is a customer with the same queuedAt
+     */
+    public boolean addCustomer(Customer customer) {
+        if (!customers.add(customer)) {
+            return false;
+        }
+        stripes[(int) (Thread.currentThread().getId() % stripes.length)].add(customer); // Each till thread mostly uses its own stripe.
+        numberOfCustomers.increment();
+        totalNumberOfItems.add(customer.getNumberOfItems());
+        totalRevenueInCents.add(customer.calculateTotalBillInCents());
+        return true;
+    }
+
+    /**
+     * gives the last combined statistics while no stripe has new customers, otherwise combines a snapshot of every stripe.
+     * Stripes without new customers reuse their previous snapshot.
+     * @return statistics of the customers added so far
+     */
+    public SupermarketStatistics getStatistics() {
+        Combined current = combined;
+        if (current != null && current.isCurrent(stripes)) {
+            return current.statistics;
+        }
+        List<SupermarketStatistics> snapshots = new ArrayList<>(stripes.length);
+        long[] counts = new long[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            SupermarketStatistics snapshot = stripes[i].snapshot();
+            snapshots.add(snapshot);
+            counts[i] = snapshot.getNumberOfCustomers(); // The count the snapshot was built for, the stripe may have grown since.
+        }
+        current = new Combined(SupermarketStatistics.combine(snapshots), counts);
+        combined = current; // Racing queries may each combine, every result is complete for its own counts.
+        return current.statistics;
+    }
+
+    public long getNumberOfCustomers() {
+        return numberOfCustomers.sum();
+    }
+
+    public long getTotalNumberOfItems() {
+        return totalNumberOfItems.sum();
+    }
+
+    /**
+     * @return total revenue, read from the counters without a snapshot
+     */
+    public double findTotalRevenue() {
+        return Money.toEuros(findTotalRevenueInCents());
+    }
+
+    public long findTotalRevenueInCents() {
+        return totalRevenueInCents.sum();
+    }
+
+    /**
+     * @return average revenue, from one snapshot so revenue and number of customers belong together
+     */
+    public double findAverageRevenue() {
+        return getStatistics().getAverageRevenue();
+    }
+
+    public double findHighestBill() {
+        return getStatistics().getHighestBill();
+    }
+
+    public Customer findMostPayingCustomer() {
+        return getStatistics().getMostPayingCustomer();
+    }
+
+    public Map<String, Double> getRevenueByZipcode() {
+        return getStatistics().getRevenueByZipcode();
+    }
+
+    public Map<Product, Integer> findNumberOfProductsBought() {
+        return getStatistics().getNumberOfProductsBought();
+    }
+
+    public Map<Product, Set<String>> findZipcodesPerProduct() {
+        return getStatistics().getZipcodesPerProduct();
+    }
+
+    public Map<String, Map<Product, Integer>> findNumberOfProductsByZipcode() {
+        return getStatistics().getNumberOfProductsByZipcode();
+    }
+
+    public Set<Product> findMostPopularProducts() {
+        return getStatistics().getMostPopularProducts();
+    }
+
+    public Map<String, Product> findMostBoughtProductByZipcode() {
+        return getStatistics().getMostBoughtProductByZipcode();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LocalTime getOpenTime() {
+        return openTime;
+    }
+
+    public LocalTime getClosingTime() {
+        return closingTime;
+    }
+
+    /**
+     * @return read-only view of the products, safe to iterate while products are added
+     */
+    public Collection<Product> getProducts() {
+        return Collections.unmodifiableCollection(products.values());
+    }
+
+    /**
+     * @return read-only view of the customers in queuedAt order, safe to iterate while customers are added
+     */
+    public NavigableSet<Customer> getCustomers() {
+        return Collections.unmodifiableNavigableSet(customers);
+    }
+
+    /**
+     * Combined statistics with the number of customers of every stripe they were combined from.
+     */
+    private static final class Combined {
+        private final SupermarketStatistics statistics;
+        private final long[] counts;
+
+        private Combined(SupermarketStatistics statistics, long[] counts) {
+            this.statistics = statistics;
+            this.counts = counts;
+        }
+
+        private boolean isCurrent(Stripe[] stripes) {
+            for (int i = 0; i < stripes.length; i++) {
+                if (stripes[i].added != counts[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * One aggregate with its own lock. The aggregator has its own catalog, because a catalog isn't thread-safe.
+     */
+    private static final class Stripe {
+        private final StatisticsAggregator aggregator = new StatisticsAggregator();
+        private volatile long added;              // customers added to this stripe, read without the lock by Combined
+        private SupermarketStatistics snapshot;   // built when added was snapshotAdded
+        private long snapshotAdded = -1;
+
+        private synchronized void add(Customer customer) {
+            aggregator.add(customer);
+            added++;
+        }
+
+        private synchronized SupermarketStatistics snapshot() {
+            if (snapshotAdded != added) {
+                snapshot = aggregator.build();
+                snapshotAdded = added;
+            }
+            return snapshot;
+        }
+    }
+}
@@ -7,14 +7,25 @@
 package model;
 
 import java.time.LocalTime;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 
 public class Customer implements Comparable<Customer> {
     private LocalTime queuedAt;      // time of arrival at cashier
     private String zipCode;          // zip-code of the customer
-    private Map<Product, Integer> itemsCart = new HashMap<>();;     // items purchased by customer
+    private static final Product[] EMPTY_CART = new Product[0];
+    private transient Product[] cartProducts = EMPTY_CART; // products purchased by customer, every product once
+    private transient int[] cartQuantities = new int[0];    // number purchased of the product at the same index
+    private transient int cartSize;                         // number of different products in the cart
+    private transient Map<Product, Integer> itemsCart;      // map view of the cart, only built when asked for
+    private transient long totalBillInCents;                // bill of the cart, kept up to date by addToCart
+    private transient int numberOfItems;                    // items in the cart, kept up to date by addToCart
+    private static volatile boolean checkingTotals = Boolean.getBoolean("supermarket.checkCustomerTotals");
+    private static final Supermarket[] NO_OWNERS = new Supermarket[0];
+    private transient Supermarket[] owners = NO_OWNERS;     // supermarkets that hold the customer, told about every cart change
     private int actualWaitingTime;   // actual waiting time in seconds before check-out
     private int actualCheckOutTime;  // actual check-out time at cashier in seconds
 
@@ -27,32 +38,90 @@ public class Customer implements Comparable<Customer> {
     }
 
     /**
-     * calculate the total number of items purchased by this customer
+     * total number of items purchased by this customer, counted along with addToCart
      * @return
      */
     public int getNumberOfItems() {
+        if (checkingTotals) {
+            checkTotals();
+        }
+        return numberOfItems;
+    }
+
+    /**
+     * turns on checks that recount the cart on every read of the bill or the number of items,
+     * and throw an IllegalStateException when the kept totals don't match. Meant for tests, it makes the reads O(cart).
+     * Also turned on by -Dsupermarket.checkCustomerTotals=true.
+     */
+    public static void setCheckingTotals(boolean checking) {
+        checkingTotals = checking;
+    }
+
+    public static boolean isCheckingTotals() {
+        return checkingTotals;
+    }
+
+    private void checkTotals() {
         int numItems = 0;
-        for (Integer amount : itemsCart.values()) {
-            // The loop counts the total amount of each product and adds this to the sum.
-            numItems += amount;
+        long totalBill = 0;
+        for (int i = 0; i < cartSize; i++) {
+            numItems += cartQuantities[i];
+            totalBill += cartProducts[i].getPriceInCents() * cartQuantities[i]; // Price of the product multiplied by amount of products.
+        }
+        if (numItems != numberOfItems || totalBill != totalBillInCents) {
+            throw new IllegalStateException("Cart totals of customer " + queuedAt + " are out of date: " + numberOfItems + " items and "
+                    + totalBillInCents + " cents kept, " + numItems + " items and " + totalBill + " cents in the cart");
         }
-        return numItems;
     }
 
 
     public void addToCart(Product product, int number) {
-        if (itemsCart.containsKey(product)) {
-            int currentAmount = itemsCart.get(product);
-            itemsCart.put(product, currentAmount + number); // If the product already exists in the cart then adds the new amoun with currentAmount.
+        int index = indexInCart(product);
+        if (index >= 0) {
+            cartQuantities[index] += number; // If the product already exists in the cart then adds the new amount to the current amount.
         } else {
-            itemsCart.put(product, number); // If product doesn't exist in cart yet adds product + amount of it.
+            if (cartSize == cartProducts.length) { // Arrays are full, grow them.
+                int capacity = Math.max(4, cartSize * 2);
+                cartProducts = Arrays.copyOf(cartProducts, capacity);
+                cartQuantities = Arrays.copyOf(cartQuantities, capacity);
+            }
+            cartProducts[cartSize] = product; // If product doesn't exist in cart yet adds product + amount of it.
+            cartQuantities[cartSize] = number;
+            cartSize++;
+        }
+        numberOfItems += number;
+        totalBillInCents += product.getPriceInCents() * number;
+        itemsCart = null; // The map view is outdated now.
+        if (owners != null) { // null after deserialization until the customer is added again
+            for (Supermarket owner : owners) {
+                owner.cartChanged(); // Results of the supermarket that were computed from the old cart are outdated now.
+            }
+        }
+    }
+
+    private int indexInCart(Product product) {
+        for (int i = 0; i < cartSize; i++) { // Carts are small, so a linear search is cheaper than hashing.
+            if (cartProducts[i].equals(product)) {
+                return i;
+            }
         }
+        return -1;
     }
 
     public double calculateTotalBill() {
-        return itemsCart.entrySet().stream() // With entrySet I get the Set that holds all key value pirs of itemsCart (HashMap)
-                .mapToDouble(entry -> entry.getKey().getPrice() * entry.getValue()) // mapToDouble makes all elemnts in the stream a double. With the lambda expression I retrieve the product & price and is multiplied by amount of products.
-                .sum(); // The result of the lambda expression above is the sum, this is returned.
+        return Money.toEuros(calculateTotalBillInCents());
+    }
+
+    /**
+     * bill in whole cents, exact so bills can be compared and summed without rounding errors.
+     * Kept up to date by addToCart, so this doesn't walk the cart.
+     * @return total bill in cents
+     */
+    public long calculateTotalBillInCents() {
+        if (checkingTotals) {
+            checkTotals();
+        }
+        return totalBillInCents;
     }
 
     @Override
@@ -60,8 +129,8 @@ public class Customer implements Comparable<Customer> {
         StringBuilder result = new StringBuilder("queuedAt: " + queuedAt);
         result.append("\nzipCode: " + zipCode);
         result.append("\nPurchases:" );
-        for (Product product : itemsCart.keySet()) {
-            result.append("\n\t" + product + ": " + itemsCart.get(product));
+        for (int i = 0; i < cartSize; i++) {
+            result.append("\n\t" + cartProducts[i] + ": " + cartQuantities[i]);
         }
         result.append("\n");
         return result.toString();
@@ -99,7 +168,96 @@ public class Customer implements Comparable<Customer> {
         return zipCode;
     }
 
+    public int getActualWaitingTime() {
+        return actualWaitingTime;
+    }
+
+    public void setActualWaitingTime(int actualWaitingTime) {
+        this.actualWaitingTime = actualWaitingTime;
+    }
+
+    public int getActualCheckOutTime() {
+        return actualCheckOutTime;
+    }
+
+    public void setActualCheckOutTime(int actualCheckOutTime) {
+        this.actualCheckOutTime = actualCheckOutTime;
+    }
+
+    /**
+     * Gives the cart as a map. Unlike the HashMap this used to return, the map is read-only: put, remove and clear throw
+     * UnsupportedOperationException, because a change past addToCart would leave the bill, the number of items and
+     * the caches of the supermarket outdated. Callers that changed the map should use addToCart instead.
+     * @return read-only map with the amount per product, in the order the products were added
+     */
     public Map<Product, Integer> getItemsCart() {
+        if (itemsCart == null) {
+            Map<Product, Integer> cart = new LinkedHashMap<>();
+            for (int i = 0; i < cartSize; i++) {
+                cart.put(cartProducts[i], cartQuantities[i]);
+            }
+            itemsCart = Collections.unmodifiableMap(cart);
+        }
         return itemsCart;
     }
+
+    /**
+     * @return number of different products in the cart
+     */
+    public int getCartSize() {
+        return cartSize;
+    }
+
+    public Product getCartProduct(int index) {
+        return cartProducts[index];
+    }
+
+    public int getCartQuantity(int index) {
+        return cartQuantities[index];
+    }
+
+    /**
+     * replaces the products in the cart by the instances of the catalog, so all carts share one instance per product,
+     * and recounts the bill with their prices
+     */
+    void internCart(ProductCatalog catalog) {
+        long totalBill = 0;
+        for (int i = 0; i < cartSize; i++) {
+            cartProducts[i] = catalog.intern(cartProducts[i]);
+            totalBill += cartProducts[i].getPriceInCents() * cartQuantities[i]; // The catalog instance may carry another price for the code.
+        }
+        totalBillInCents = totalBill;
+        itemsCart = null;
+    }
+
+    /**
+     * remembers the supermarket the customer was added to, after this every change of the cart is reported to it.
+     * Loading fills carts before customers are added, so it doesn't report anything.
+     */
+    void addedToSupermarket(Supermarket owner) {
+        Supermarket[] current = owners == null ? NO_OWNERS : owners;
+        owners = Arrays.copyOf(current, current.length + 1); // Almost always one owner, so an array is enough.
+        owners[current.length] = owner;
+    }
+
+    /**
+     * forgets the supermarket the customer was removed from, its cart changes aren't reported to it anymore
+     */
+    void removedFromSupermarket(Supermarket owner) {
+        for (int i = 0; owners != null && i < owners.length; i++) {
+            if (owners[i] == owner) {
+                Supermarket[] remaining = Arrays.copyOf(owners, owners.length - 1);
+                System.arraycopy(owners, i + 1, remaining, i, owners.length - 1 - i);
+                owners = remaining;
+                return;
+            }
+        }
+    }
+
+    /**
+     * replaces the zip code by the instance of the dictionary, so customers of one zip code share one String
+     */
+    void internZipCode(ZipCodeDictionary zipCodes) {
+        zipCode = zipCodes.intern(zipCode);
+    }
 }
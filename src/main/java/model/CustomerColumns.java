@@ -0,0 +1,209 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Column store of the customers of a supermarket. Every customer is a row, every field a primitive array,
+ * and the carts are flattened into one product and one quantity array (compressed sparse rows).
+ * Analytics loop over these arrays instead of following Customer and Product objects.
+ */
+public final class CustomerColumns {
+    private static final int MAX_ZIPCODE_PRODUCT_CELLS = 1 << 24; // bigger zip code x product tables are counted with maps
+
+    private final int numberOfCustomers;
+    private final Customer[] customers;     // only used to hand out a Customer as a query result
+    private final int[] arrivalSeconds;     // queuedAt as second of day
+    private final int[] zipcodeIds;         // zip code of the customer as id in zipcodes
+    private final String[] zipcodes;        // zip code per id
+    private final long[] billsInCents;      // total bill of the customer in cents
+    private final int[] cartStart;          // the cart of customer i is at cartStart[i] until cartStart[i + 1]
+    private final int[] cartProductIds;     // ids of the ProductCatalog
+    private final int[] cartQuantities;
+    private final ProductCatalog catalog;
+
+    CustomerColumns(Collection<Customer> customers, ProductCatalog catalog) {
+        this.catalog = catalog;
+        numberOfCustomers = customers.size();
+        this.customers = customers.toArray(new Customer[0]);
+        arrivalSeconds = new int[numberOfCustomers];
+        zipcodeIds = new int[numberOfCustomers];
+        billsInCents = new long[numberOfCustomers];
+        cartStart = new int[numberOfCustomers + 1];
+
+        int cartLines = 0;
+        for (Customer customer : this.customers) {
+            cartLines += customer.getCartSize();
+        }
+        cartProductIds = new int[cartLines];
+        cartQuantities = new int[cartLines];
+
+        Map<String, Integer> zipcodeDictionary = new HashMap<>();
+        long[] priceInCents = new long[0];
+        int line = 0;
+        for (int row = 0; row < numberOfCustomers; row++) {
+            Customer customer = this.customers[row];
+            arrivalSeconds[row] = customer.getQueuedAt().toSecondOfDay();
+            zipcodeIds[row] = zipcodeDictionary.computeIfAbsent(customer.getZipCode(), zipCode -> zipcodeDictionary.size());
+            cartStart[row] = line;
+            long bill = 0;
+            for (int i = 0; i < customer.getCartSize(); i++) {
+                int productId = catalog.register(customer.getCartProduct(i));
+                if (productId >= priceInCents.length) { // Prices per id, so each product price is converted only once.
+                    int oldLength = priceInCents.length;
+                    priceInCents = Arrays.copyOf(priceInCents, Math.max(catalog.size(), productId + 1));
+                    for (int id = oldLength; id < priceInCents.length; id++) {
+                        priceInCents[id] = catalog.getProduct(id).getPriceInCents();
+                    }
+                }
+                cartProductIds[line] = productId;
+                cartQuantities[line] = customer.getCartQuantity(i);
+                bill += priceInCents[productId] * cartQuantities[line];
+                line++;
+            }
+            billsInCents[row] = bill;
+        }
+        cartStart[numberOfCustomers] = line;
+
+        zipcodes = new String[zipcodeDictionary.size()];
+        zipcodeDictionary.forEach((zipCode, id) -> zipcodes[id] = zipCode);
+    }
+
+    public int size() {
+        return numberOfCustomers;
+    }
+
+    /**
+     * @return total revenue of all customers in cents
+     */
+    public long findTotalRevenueInCents() {
+        long total = 0;
+        for (int row = 0; row < numberOfCustomers; row++) {
+            total += billsInCents[row];
+        }
+        return total;
+    }
+
+    /**
+     * @return total number of items bought by all customers
+     */
+    public int getTotalNumberOfItems() {
+        int total = 0;
+        for (int line = 0; line < cartQuantities.length; line++) {
+            total += cartQuantities[line];
+        }
+        return total;
+    }
+
+    /**
+     * @return revenue in cents per zip code id
+     */
+    public long[] findRevenueInCentsByZipcodeId() {
+        long[] revenues = new long[zipcodes.length];
+        for (int row = 0; row < numberOfCustomers; row++) {
+            revenues[zipcodeIds[row]] += billsInCents[row];
+        }
+        return revenues;
+    }
+
+    /**
+     * @return number of units bought per product id
+     */
+    public int[] findNumberOfProductsBoughtById() {
+        int[] units = new int[catalog.size()];
+        for (int line = 0; line < cartProductIds.length; line++) {
+            units[cartProductIds[line]] += cartQuantities[line];
+        }
+        return units;
+    }
+
+    /**
+     * @return number of customers that bought the product, per product id
+     */
+    public int[] findNumberOfCustomersByProductId() {
+        int[] customersPerProduct = new int[catalog.size()];
+        for (int line = 0; line < cartProductIds.length; line++) {
+            customersPerProduct[cartProductIds[line]]++; // A product is only once in a cart.
+        }
+        return customersPerProduct;
+    }
+
+    /**
+     * @return revenue in cents of the customers that arrived from (inclusive) until to (exclusive), both as second of day
+     */
+    public long findRevenueInCentsBetween(int fromSecond, int toSecond) {
+        long revenue = 0;
+        for (int row = 0; row < numberOfCustomers; row++) {
+            int arrival = arrivalSeconds[row];
+            if (arrival >= fromSecond && arrival < toSecond) {
+                revenue += billsInCents[row];
+            }
+        }
+        return revenue;
+    }
+
+    /**
+     * calculates all statistics with loops over the columns
+     * @return statistics snapshot, equal to the one of a StatisticsAggregator
+     */
+    public SupermarketStatistics computeStatistics() {
+        int products = catalog.size();
+        if ((long) zipcodes.length * products > MAX_ZIPCODE_PRODUCT_CELLS) { // Table would be too big, count with maps instead.
+            return StatisticsAggregator.aggregate(customers, catalog, null);
+        }
+
+        int highestRow = -1;
+        for (int row = 0; row < numberOfCustomers; row++) {
+            if (highestRow < 0 || billsInCents[row] > billsInCents[highestRow]) { // First customer with the highest bill.
+                highestRow = row;
+            }
+        }
+
+        int[] units = findNumberOfProductsBoughtById();
+        int[] customersPerProduct = findNumberOfCustomersByProductId();
+        long[] revenues = findRevenueInCentsByZipcodeId();
+        int[] unitsByZipcode = new int[zipcodes.length * products];       // row per zip code id, column per product id
+        boolean[] boughtInZipcode = new boolean[zipcodes.length * products];
+        for (int row = 0; row < numberOfCustomers; row++) {
+            int tableRow = zipcodeIds[row] * products;
+            for (int line = cartStart[row]; line < cartStart[row + 1]; line++) {
+                unitsByZipcode[tableRow + cartProductIds[line]] += cartQuantities[line];
+                boughtInZipcode[tableRow + cartProductIds[line]] = true;
+            }
+        }
+
+        Map<Product, Integer> productsBought = new HashMap<>();
+        Map<Product, Integer> customersByProduct = new HashMap<>();
+        for (int id = 0; id < products; id++) {
+            if (customersPerProduct[id] > 0) {
+                productsBought.put(catalog.getProduct(id), units[id]);
+                customersByProduct.put(catalog.getProduct(id), customersPerProduct[id]);
+            }
+        }
+        Map<String, Long> revenueByZipcode = new TreeMap<>();
+        Map<String, Map<Product, Integer>> productsByZipcode = new HashMap<>();
+        for (int zipcodeId = 0; zipcodeId < zipcodes.length; zipcodeId++) {
+            revenueByZipcode.put(zipcodes[zipcodeId], revenues[zipcodeId]);
+            Map<Product, Integer> counter = new HashMap<>();
+            for (int id = 0; id < products; id++) {
+                if (boughtInZipcode[zipcodeId * products + id]) {
+                    counter.put(catalog.getProduct(id), unitsByZipcode[zipcodeId * products + id]);
+                }
+            }
+            productsByZipcode.put(zipcodes[zipcodeId], counter);
+        }
+
+        return new SupermarketStatistics(numberOfCustomers, getTotalNumberOfItems(), findTotalRevenueInCents(),
+                highestRow < 0 ? 0 : billsInCents[highestRow], highestRow < 0 ? null : customers[highestRow],
+                productsBought, customersByProduct, productsByZipcode, revenueByZipcode);
+    }
+}
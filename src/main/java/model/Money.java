@@ -0,0 +1,86 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions for amounts of money that are kept as a whole number of cents.
+ * Adding longs is exact, so sums of many bills don't drift and can be compared with ==.
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    /**
+     * parses a decimal amount in euros, like "4.25" or "0.5", straight into cents.
+     * More than two decimals are rounded half up.
+     * @return amount in cents
+     */
+    public static long parseCents(String euros) {
+        int length = euros.length();
+        int index = 0;
+        boolean negative = false;
+        if (length > 0 && (euros.charAt(0) == '-' || euros.charAt(0) == '+')) {
+            negative = euros.charAt(0) == '-';
+            index++;
+        }
+        long cents = 0;
+        int decimals = -1; // -1 while still before the decimal point
+        boolean roundUp = false;
+        boolean digits = false;
+        for (; index < length; index++) {
+            char current = euros.charAt(index);
+            if (current >= '0' && current <= '9') {
+                digits = true;
+                if (decimals < 2) {
+                    cents = cents * 10 + (current - '0');
+                    if (decimals >= 0) {
+                        decimals++;
+                    }
+                } else if (decimals == 2) {
+                    roundUp = current >= '5'; // Only the third decimal decides the rounding.
+                    decimals++;
+                }
+            } else if (current == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                return toCents(new BigDecimal(euros)); // Exponents and other notations.
+            }
+        }
+        if (!digits) {
+            throw new NumberFormatException("Not an amount: " + euros);
+        }
+        for (int missing = Math.max(decimals, 0); missing < 2; missing++) {
+            cents *= 10;
+        }
+        if (roundUp) {
+            cents++;
+        }
+        return negative ? -cents : cents;
+    }
+
+    /**
+     * @return amount in cents of an amount in euros, rounded half up to whole cents
+     */
+    public static long toCents(double euros) {
+        return toCents(BigDecimal.valueOf(euros)); // valueOf uses the shortest decimal form, so 4.25 really is 4.25.
+    }
+
+    private static long toCents(BigDecimal euros) {
+        return euros.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * @return amount in euros, for reporting
+     */
+    public static double toEuros(long cents) {
+        return cents / 100.0;
+    }
+}
@@ -12,14 +12,30 @@ public class Product implements Comparable<Product> {
     private String code;            // a unique product code; identical codes designate identical products
     private String description;     // the product description, useful for reporting
     private double price;           // the product's price
+    private final transient long priceInCents;  // the price in whole cents, final so threads that share the product always see it
+    transient ProductCatalog.Ordinal ordinal;   // id in the first catalog that kept this instance
 
     public Product() {
+        this(null, null, 0.0, 0);
     }
 
     public Product(String code, String description, double price) {
+        this(code, description, price, Money.toCents(price));
+    }
+
+    private Product(String code, String description, double price, long priceInCents) {
         this.code = code;
         this.description = description;
         this.price = price;
+        this.priceInCents = priceInCents;
+    }
+
+    /**
+     * creates a product with an exact price in cents
+     * @return the product
+     */
+    public static Product ofCents(String code, String description, long priceInCents) {
+        return new Product(code, description, Money.toEuros(priceInCents), priceInCents);
     }
 
     @Override
@@ -56,4 +72,11 @@ public class Product implements Comparable<Product> {
     public double getPrice() {
         return price;
     }
+
+    /**
+     * @return the price in whole cents
+     */
+    public long getPriceInCents() {
+        return priceInCents;
+    }
 }
@@ -0,0 +1,103 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives every product of a supermarket a dense id (0, 1, 2, ...) and keeps one instance per product code.
+ * The first product that is added for a code is the one that is kept, just like the HashSet of products.
+ * The kept instance remembers its id in this catalog, so looking it up again doesn't need the hash map.
+ */
+public class ProductCatalog {
+    private final Map<String, Integer> ids = new HashMap<>();  // ids by product code
+    private final List<Product> products = new ArrayList<>();  // products by id
+
+    /**
+     * adds the product to the catalog if its code is new
+     * @return the catalog instance with the same code
+     */
+    public Product intern(Product product) {
+        return products.get(register(product));
+    }
+
+    /**
+     * adds the product to the catalog if its code is new
+     * @return id of the product
+     */
+    public int register(Product product) {
+        Ordinal ordinal = product.ordinal;
+        if (ordinal != null && ordinal.catalog == this) {
+            return ordinal.id;
+        }
+        Integer id = ids.get(product.getCode());
+        if (id == null) {
+            id = products.size();
+            ids.put(product.getCode(), id);
+            products.add(product);
+            if (ordinal == null) { // Only the first catalog of a product gets the fast lookup.
+                product.ordinal = new Ordinal(this, id);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * @return id of the product or -1 if it isn't in the catalog
+     */
+    public int getId(Product product) {
+        Ordinal ordinal = product.ordinal;
+        if (ordinal != null && ordinal.catalog == this) {
+            return ordinal.id;
+        }
+        return getId(product.getCode());
+    }
+
+    /**
+     * @return id of the product with the code or -1 if it isn't in the catalog
+     */
+    public int getId(String code) {
+        Integer id = ids.get(code);
+        return id == null ? -1 : id;
+    }
+
+    public Product getProduct(int id) {
+        return products.get(id);
+    }
+
+    /**
+     * @return the product with the code, null if it isn't in the catalog
+     */
+    public Product getProduct(String code) {
+        Integer id = ids.get(code);
+        return id == null ? null : products.get(id);
+    }
+
+    /**
+     * @return number of ids that are in use
+     */
+    public int size() {
+        return products.size();
+    }
+
+    /**
+     * Id of a product in the catalog that kept it. Catalog and id are one immutable object,
+     * so a product that is registered in catalogs on separate threads never pairs the id of one catalog with another.
+     */
+    static final class Ordinal {
+        private final ProductCatalog catalog;
+        private final int id;
+
+        private Ordinal(ProductCatalog catalog, int id) {
+            this.catalog = catalog;
+            this.id = id;
+        }
+    }
+}
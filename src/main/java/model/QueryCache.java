@@ -0,0 +1,73 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package model;
+
+import metrics.CacheMetrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Results of queries by query name and parameters, for the version of the supermarket they were computed for.
+ * A lookup with a newer version drops all results, and beyond the maximum size the least recently used result is dropped.
+ * Like the Supermarket it belongs to, the cache is meant for one thread. Queries should only put immutable results in it,
+ * since every caller gets the same instance.
+ */
+class QueryCache {
+    private final Map<Object, Object> results = new LinkedHashMap<>(16, 0.75f, true) { // Access order, so the eldest entry is the least recently used.
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+            return size() > maxSize;
+        }
+    };
+    private final CacheMetrics metrics;
+    private int maxSize;
+    private long version = -1; // version of the supermarket the results belong to
+
+    QueryCache(int maxSize, CacheMetrics metrics) {
+        setMaxSize(maxSize);
+        this.metrics = metrics;
+    }
+
+    void setMaxSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Query cache size can't be negative: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        results.keySet().removeIf(key -> results.size() > maxSize); // Removes the least recently used first.
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * gives the cached result of the query, or runs the query and caches its result
+     * @param version current version of the supermarket
+     * @param key query name and parameters, with equals and hashCode over all of them, for example Arrays.asList(name, minutes)
+     * @return the result of the query
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(long version, Object key, Supplier<T> query) {
+        if (version != this.version) {
+            results.clear();
+            this.version = version;
+        }
+        Object result = results.get(key);
+        if (result != null) {
+            metrics.hit();
+            return (T) result;
+        }
+        metrics.miss();
+        T computed = query.get();
+        if (computed != null) {
+            results.put(key, computed);
+        }
+        return computed;
+    }
+}
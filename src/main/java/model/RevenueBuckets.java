@@ -0,0 +1,47 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package model;
+
+import java.time.LocalTime;
+
+/**
+ * Revenue per second of the day in a Fenwick tree. Adding a customer and asking the revenue between two
+ * whole seconds both take O(log 86400), so the revenue per interval stays up to date while customers come in.
+ */
+final class RevenueBuckets {
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private final long[] tree = new long[SECONDS_PER_DAY + 1]; // Fenwick tree over the seconds, index 1 is second 0
+
+    void add(Customer customer) {
+        long bill = customer.calculateTotalBillInCents();
+        for (int index = customer.getQueuedAt().toSecondOfDay() + 1; index <= SECONDS_PER_DAY; index += index & -index) {
+            tree[index] += bill;
+        }
+    }
+
+    /**
+     * @return revenue in cents of the customers that queued in the seconds before the second
+     */
+    private long revenueBefore(int second) {
+        long revenue = 0;
+        for (int index = second; index > 0; index -= index & -index) {
+            revenue += tree[index];
+        }
+        return revenue;
+    }
+
+    /**
+     * @param to end of the interval, null for midnight
+     * @return revenue in cents of the customers with from <= queuedAt < to, both should be whole seconds
+     */
+    long revenueInCentsBetween(LocalTime from, LocalTime to) {
+        int end = to == null ? SECONDS_PER_DAY : to.toSecondOfDay();
+        int start = from.toSecondOfDay();
+        return end <= start ? 0 : revenueBefore(end) - revenueBefore(start);
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package model;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Prefix sums of the revenue over the arrival times of the customers.
+ * The revenue between any two times is the difference of two prefix sums, found with two binary searches.
+ */
+public final class RevenueTimeline {
+    private final long[] arrivalTimes;     // queuedAt of every customer as nano of day, in ascending order
+    private final long[] revenueBefore;    // revenueBefore[i] is the revenue in cents of the first i customers
+
+    /**
+     * @param customers customers ordered by queuedAt, like the customers of a Supermarket
+     */
+    RevenueTimeline(Collection<Customer> customers) {
+        arrivalTimes = new long[customers.size()];
+        revenueBefore = new long[customers.size() + 1];
+        int index = 0;
+        for (Customer customer : customers) {
+            arrivalTimes[index] = customer.getQueuedAt().toNanoOfDay();
+            revenueBefore[index + 1] = revenueBefore[index] + customer.calculateTotalBillInCents();
+            index++;
+        }
+    }
+
+    /**
+     * calculates the revenue of the customers that queued at or after from and before to
+     * @return revenue between from (inclusive) and to (exclusive)
+     */
+    public double revenueBetween(LocalTime from, LocalTime to) {
+        return Money.toEuros(revenueInCentsBetween(from, to));
+    }
+
+    public long revenueInCentsBetween(LocalTime from, LocalTime to) {
+        int first = firstArrivalAtOrAfter(from.toNanoOfDay());
+        int end = firstArrivalAtOrAfter(to.toNanoOfDay());
+        return end <= first ? 0 : revenueBefore[end] - revenueBefore[first];
+    }
+
+    /**
+     * calculates the revenue of the customers that queued at or after from until the end of the day
+     * @return revenue from (inclusive) until midnight
+     */
+    public double revenueFrom(LocalTime from) {
+        return Money.toEuros(revenueInCentsFrom(from));
+    }
+
+    public long revenueInCentsFrom(LocalTime from) {
+        int first = firstArrivalAtOrAfter(from.toNanoOfDay());
+        return revenueBefore[arrivalTimes.length] - revenueBefore[first];
+    }
+
+    private int firstArrivalAtOrAfter(long nanoOfDay) {
+        int index = Arrays.binarySearch(arrivalTimes, nanoOfDay); // queuedAt is unique, so there is at most one match.
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package model;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+
+/**
+ * Revenue, customers and items of the last minutes, for example the last 5, 15 and 60 minutes, while the store is open.
+ * Arrivals are counted per second in ring buffers as long as the longest window, and every window keeps running sums.
+ * When the clock moves on the seconds that drop out of a window are subtracted, so adding a customer and asking a window
+ * are O(1) and memory doesn't grow with the opening hours. Times are seconds of one day, the clock follows the
+ * latest queuedAt or advanceTo. The methods are synchronized, so a reporting thread can read while customers come in.
+ */
+public class SlidingWindowMetrics {
+    private static final int[] DEFAULT_WINDOWS_IN_MINUTES = {5, 15, 60};
+
+    private final int[] windowSeconds;      // length of every window in seconds
+    private final int capacity;             // seconds in the ring buffers, the longest window
+    private final long[] revenueBuckets;    // revenue in cents per second, second s is at s % capacity
+    private final int[] customerBuckets;
+    private final int[] itemBuckets;
+    private final long[] windowRevenue;     // running sums per window
+    private final long[] windowCustomers;
+    private final long[] windowItems;
+    private int currentSecond = -1;         // latest second of the clock, -1 before the first arrival
+
+    public SlidingWindowMetrics() {
+        this(DEFAULT_WINDOWS_IN_MINUTES);
+    }
+
+    public SlidingWindowMetrics(int... windowsInMinutes) {
+        if (windowsInMinutes.length == 0) {
+            throw new IllegalArgumentException("At least one window is needed");
+        }
+        windowSeconds = new int[windowsInMinutes.length];
+        int longest = 0;
+        for (int window = 0; window < windowsInMinutes.length; window++) {
+            if (windowsInMinutes[window] < 1 || windowsInMinutes[window] > 24 * 60) {
+                throw new IllegalArgumentException("Window should be between 1 minute and a day: " + windowsInMinutes[window]);
+            }
+            windowSeconds[window] = windowsInMinutes[window] * 60;
+            longest = Math.max(longest, windowSeconds[window]);
+        }
+        capacity = longest;
+        revenueBuckets = new long[capacity];
+        customerBuckets = new int[capacity];
+        itemBuckets = new int[capacity];
+        windowRevenue = new long[windowSeconds.length];
+        windowCustomers = new long[windowSeconds.length];
+        windowItems = new long[windowSeconds.length];
+    }
+
+    /**
+     * counts a customer in the second of its queuedAt and moves the clock there when that is later.
+     * A customer that arrives late is still counted in the windows that contain its second.
+     */
+    public synchronized void add(Customer customer) {
+        int second = customer.getQueuedAt().toSecondOfDay();
+        advance(second);
+        int age = currentSecond - second;
+        if (age >= capacity) {
+            return; // Older than the longest window.
+        }
+        long bill = customer.calculateTotalBillInCents();
+        int items = customer.getNumberOfItems();
+        int bucket = second % capacity;
+        revenueBuckets[bucket] += bill;
+        customerBuckets[bucket]++;
+        itemBuckets[bucket] += items;
+        for (int window = 0; window < windowSeconds.length; window++) {
+            if (age < windowSeconds[window]) {
+                windowRevenue[window] += bill;
+                windowCustomers[window]++;
+                windowItems[window] += items;
+            }
+        }
+    }
+
+    /**
+     * moves the clock forward, for example every second, so seconds without customers also leave the windows
+     */
+    public synchronized void advanceTo(LocalTime now) {
+        advance(now.toSecondOfDay());
+    }
+
+    private void advance(int second) {
+        if (second <= currentSecond) {
+            return;
+        }
+        if (currentSecond < 0 || second - currentSecond >= capacity) { // Nothing of the old buckets stays in any window.
+            Arrays.fill(revenueBuckets, 0);
+            Arrays.fill(customerBuckets, 0);
+            Arrays.fill(itemBuckets, 0);
+            Arrays.fill(windowRevenue, 0);
+            Arrays.fill(windowCustomers, 0);
+            Arrays.fill(windowItems, 0);
+            currentSecond = second;
+            return;
+        }
+        for (int next = currentSecond + 1; next <= second; next++) {
+            for (int window = 0; window < windowSeconds.length; window++) {
+                int leaving = next - windowSeconds[window];
+                if (leaving >= 0) {
+                    int bucket = leaving % capacity;
+                    windowRevenue[window] -= revenueBuckets[bucket];
+                    windowCustomers[window] -= customerBuckets[bucket];
+                    windowItems[window] -= itemBuckets[bucket];
+                }
+            }
+            int bucket = next % capacity; // Held the second next - capacity, which has left every window now.
+            revenueBuckets[bucket] = 0;
+            customerBuckets[bucket] = 0;
+            itemBuckets[bucket] = 0;
+        }
+        currentSecond = second;
+    }
+
+    /**
+     * @return revenue of the customers that arrived in the last minutes, up to and including the current second
+     */
+    public synchronized double getRevenue(int minutes) {
+        return Money.toEuros(windowRevenue[windowIndex(minutes)]);
+    }
+
+    public synchronized long getRevenueInCents(int minutes) {
+        return windowRevenue[windowIndex(minutes)];
+    }
+
+    public synchronized long getNumberOfCustomers(int minutes) {
+        return windowCustomers[windowIndex(minutes)];
+    }
+
+    public synchronized long getNumberOfItems(int minutes) {
+        return windowItems[windowIndex(minutes)];
+    }
+
+    /**
+     * @return time of the clock, null before the first customer
+     */
+    public synchronized LocalTime getCurrentTime() {
+        return currentSecond < 0 ? null : LocalTime.ofSecondOfDay(currentSecond);
+    }
+
+    private int windowIndex(int minutes) {
+        for (int window = 0; window < windowSeconds.length; window++) {
+            if (windowSeconds[window] == minutes * 60) {
+                return window;
+            }
+        }
+        throw new IllegalArgumentException("No window of " + minutes + " minutes");
+    }
+}
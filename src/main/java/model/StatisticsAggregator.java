@@ -0,0 +1,231 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Collects all customer and product statistics in a single pass over the customers.
+ * Every customer is visited once and its bill is only calculated once. Products are counted in primitive arrays
+ * by their catalog id, so aggregators of separate parts of the customers can run on separate threads.
+ * Aggregators of parts of the customers can be merged. Customers may be added in any order, the results don't depend on it.
+ */
+public class StatisticsAggregator {
+    private static final int CUSTOMERS_PER_TASK = 4096; // smaller parts are aggregated on one thread
+
+    private final ProductCatalog catalog;
+    private int numberOfCustomers;
+    private int totalNumberOfItems;
+    private long totalRevenueInCents;
+    private long highestBillInCents;
+    private Customer mostPayingCustomer;        // first customer with the highest bill
+    private int[] productsBought = new int[0];          // units bought per product id
+    private int[] customersPerProduct = new int[0];     // number of carts holding the product, per product id
+    private final Map<String, ZipcodeCounter> zipcodes = new HashMap<>();
+
+    public StatisticsAggregator() {
+        this(new ProductCatalog());
+    }
+
+    /**
+     * creates an aggregator that counts products by the ids of the catalog. Products of the carts that aren't
+     * in the catalog yet are added to it, so aggregators that share a catalog should be fed on one thread.
+     */
+    public StatisticsAggregator(ProductCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * aggregates the customers, in parts on the pool when the pool isn't null. The parts are merged in order,
+     * so the result is exactly the same as aggregating all customers on a single thread.
+     * @return statistics of the customers
+     */
+    public static SupermarketStatistics aggregate(Customer[] customers, ProductCatalog catalog, ForkJoinPool pool) {
+        if (pool == null || customers.length <= CUSTOMERS_PER_TASK) {
+            StatisticsAggregator aggregator = new StatisticsAggregator(catalog);
+            for (Customer customer : customers) {
+                aggregator.add(customer);
+            }
+            return aggregator.build();
+        }
+        for (Customer customer : customers) { // The tasks share the catalog, so they should only find products that are in it.
+            for (int i = 0; i < customer.getCartSize(); i++) {
+                catalog.register(customer.getCartProduct(i));
+            }
+        }
+        return pool.invoke(new AggregateTask(customers, 0, customers.length, catalog)).build();
+    }
+
+    /**
+     * adds one customer to all statistics
+     */
+    public void add(Customer customer) {
+        long bill = customer.calculateTotalBillInCents();
+        numberOfCustomers++;
+        totalNumberOfItems += customer.getNumberOfItems();
+        totalRevenueInCents += bill;
+        if (mostPayingCustomer == null || bill > highestBillInCents
+                || (bill == highestBillInCents && queuedEarlier(customer, mostPayingCustomer))) { // On equal bills the first customer stays.
+            highestBillInCents = bill;
+            mostPayingCustomer = customer;
+        }
+
+        ZipcodeCounter zipcodeCounter = zipcodes.computeIfAbsent(customer.getZipCode(), k -> new ZipcodeCounter());
+        zipcodeCounter.revenueInCents += bill;
+        for (int i = 0; i < customer.getCartSize(); i++) {
+            int id = idOf(customer.getCartProduct(i));
+            int quantity = customer.getCartQuantity(i);
+            if (id >= productsBought.length) {
+                productsBought = Arrays.copyOf(productsBought, Math.max(catalog.size(), id + 1));
+                customersPerProduct = Arrays.copyOf(customersPerProduct, productsBought.length);
+            }
+            productsBought[id] += quantity;
+            customersPerProduct[id]++;
+            zipcodeCounter.add(id, quantity, productsBought.length);
+        }
+    }
+
+    /**
+     * customers can be added in any order (like live customers), so on equal bills the customer that queued first wins
+     */
+    static boolean queuedEarlier(Customer customer, Customer other) {
+        return customer.getQueuedAt() != null && other.getQueuedAt() != null && customer.compareTo(other) < 0;
+    }
+
+    private int idOf(Product product) {
+        return catalog.register(product); // Only reads the catalog when the product is in it.
+    }
+
+    /**
+     * adds the statistics of a later part of the customers to this aggregator, both should use the same catalog
+     * @return this aggregator
+     */
+    public StatisticsAggregator merge(StatisticsAggregator later) {
+        if (later.catalog != catalog) {
+            throw new IllegalArgumentException("Only aggregators with the same catalog can be merged");
+        }
+        numberOfCustomers += later.numberOfCustomers;
+        totalNumberOfItems += later.totalNumberOfItems;
+        totalRevenueInCents += later.totalRevenueInCents;
+        if (later.mostPayingCustomer != null && (mostPayingCustomer == null || later.highestBillInCents > highestBillInCents
+                || (later.highestBillInCents == highestBillInCents && queuedEarlier(later.mostPayingCustomer, mostPayingCustomer)))) {
+            highestBillInCents = later.highestBillInCents;
+            mostPayingCustomer = later.mostPayingCustomer;
+        }
+        productsBought = addArrays(productsBought, later.productsBought);
+        customersPerProduct = addArrays(customersPerProduct, later.customersPerProduct);
+        later.zipcodes.forEach((zipCode, counter) -> zipcodes.merge(zipCode, counter, ZipcodeCounter::merge));
+        return this;
+    }
+
+    private static int[] addArrays(int[] target, int[] source) {
+        if (source.length > target.length) {
+            target = Arrays.copyOf(target, source.length);
+        }
+        for (int id = 0; id < source.length; id++) {
+            target[id] += source[id];
+        }
+        return target;
+    }
+
+    /**
+     * @return immutable snapshot of the statistics collected so far
+     */
+    public SupermarketStatistics build() {
+        Map<Product, Integer> bought = new HashMap<>();
+        Map<Product, Integer> customersByProduct = new HashMap<>();
+        for (int id = 0; id < productsBought.length; id++) {
+            if (customersPerProduct[id] > 0) {
+                bought.put(catalog.getProduct(id), productsBought[id]);
+                customersByProduct.put(catalog.getProduct(id), customersPerProduct[id]);
+            }
+        }
+        Map<String, Map<Product, Integer>> productsByZipcode = new HashMap<>();
+        Map<String, Long> revenueByZipcodeInCents = new TreeMap<>();
+        zipcodes.forEach((zipCode, counter) -> {
+            revenueByZipcodeInCents.put(zipCode, counter.revenueInCents);
+            Map<Product, Integer> productCounter = new HashMap<>();
+            for (int id = 0; id < counter.units.length; id++) {
+                if (counter.bought[id]) {
+                    productCounter.put(catalog.getProduct(id), counter.units[id]);
+                }
+            }
+            productsByZipcode.put(zipCode, productCounter);
+        });
+        return new SupermarketStatistics(numberOfCustomers, totalNumberOfItems, totalRevenueInCents, highestBillInCents, mostPayingCustomer,
+                bought, customersByProduct, productsByZipcode, revenueByZipcodeInCents);
+    }
+
+    /**
+     * Revenue and units per product id of one zip code.
+     */
+    private static final class ZipcodeCounter {
+        private long revenueInCents;
+        private int[] units = new int[0];
+        private boolean[] bought = new boolean[0]; // also true for a product that is in a cart with amount 0
+
+        private void add(int id, int quantity, int capacity) {
+            if (id >= units.length) {
+                units = Arrays.copyOf(units, capacity);
+                bought = Arrays.copyOf(bought, capacity);
+            }
+            units[id] += quantity;
+            bought[id] = true;
+        }
+
+        private ZipcodeCounter merge(ZipcodeCounter later) {
+            revenueInCents += later.revenueInCents;
+            units = addArrays(units, later.units);
+            if (later.bought.length > bought.length) {
+                bought = Arrays.copyOf(bought, later.bought.length);
+            }
+            for (int id = 0; id < later.bought.length; id++) {
+                bought[id] |= later.bought[id];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Splits the customers in halves until a part is small enough, then merges the halves in order.
+     */
+    private static final class AggregateTask extends RecursiveTask<StatisticsAggregator> {
+        private static final long serialVersionUID = 1L;
+        private final Customer[] customers;
+        private final int from;
+        private final int to;
+        private final ProductCatalog catalog;
+
+        private AggregateTask(Customer[] customers, int from, int to, ProductCatalog catalog) {
+            this.customers = customers;
+            this.from = from;
+            this.to = to;
+            this.catalog = catalog;
+        }
+
+        @Override
+        protected StatisticsAggregator compute() {
+            if (to - from <= CUSTOMERS_PER_TASK) {
+                StatisticsAggregator aggregator = new StatisticsAggregator(catalog); // Thread-local counters, nothing is shared while counting.
+                for (int i = from; i < to; i++) {
+                    aggregator.add(customers[i]);
+                }
+                return aggregator;
+            }
+            int middle = (from + to) >>> 1;
+            AggregateTask later = new AggregateTask(customers, middle, to, catalog);
+            later.fork();
+            StatisticsAggregator earlier = new AggregateTask(customers, from, middle, catalog).compute();
+            return earlier.merge(later.join());
+        }
+    }
+}
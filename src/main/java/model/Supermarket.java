@@ -6,12 +6,20 @@
 
 package model;
 
+import metrics.CacheMetrics;
+import metrics.Metrics;
+import metrics.Timer;
+
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
 
+/**
+ * Products and customers of one supermarket with the reports over them. Results are computed once and cached
+ * until products, customers or carts change. A Supermarket is meant for one thread at a time: the caches are filled
+ * without synchronization. Use ConcurrentSupermarket when tills add customers while other threads query.
+ */
 public class Supermarket {
 
     private String name;                 // name of the case for reporting purposes
@@ -20,6 +28,49 @@ public class Supermarket {
     private LocalTime openTime;         // start time of the simulation
     private LocalTime closingTime;      // end time of the simulation
     private static final int INTERVAL_IN_MINUTES = 15; // to use for number of customers and revenues per 15 minute intervals
+    private static final Timer FIND_NUMBER_OF_PRODUCTS_BOUGHT_TIMER = Metrics.timer("query.findNumberOfProductsBought");
+    private static final Timer FIND_ZIPCODES_PER_PRODUCT_TIMER = Metrics.timer("query.findZipcodesPerProduct");
+    private static final Timer FIND_NUMBER_OF_PRODUCTS_BY_ZIPCODE_TIMER = Metrics.timer("query.findNumberOfProductsByZipcode");
+    private static final Timer FIND_HIGHEST_BILL_TIMER = Metrics.timer("query.findHighestBill");
+    private static final Timer FIND_MOST_PAYING_CUSTOMER_TIMER = Metrics.timer("query.findMostPayingCustomer");
+    private static final Timer FIND_TOP_PAYING_CUSTOMERS_TIMER = Metrics.timer("query.findTopPayingCustomers");
+    private static final Timer FIND_BILL_PERCENTILE_TIMER = Metrics.timer("query.findBillPercentile");
+    private static final Timer FIND_TOTAL_REVENUE_TIMER = Metrics.timer("query.findTotalRevenue");
+    private static final Timer FIND_TOTAL_REVENUE_IN_CENTS_TIMER = Metrics.timer("query.findTotalRevenueInCents");
+    private static final Timer FIND_AVERAGE_REVENUE_TIMER = Metrics.timer("query.findAverageRevenue");
+    private static final Timer GET_REVENUE_BY_ZIPCODE_TIMER = Metrics.timer("query.getRevenueByZipcode");
+    private static final Timer GET_REVENUE_BY_ZIPCODE_IN_CENTS_TIMER = Metrics.timer("query.getRevenueByZipcodeInCents");
+    private static final Timer FIND_MOST_POPULAR_PRODUCTS_TIMER = Metrics.timer("query.findMostPopularProducts");
+    private static final Timer FIND_MOST_BOUGHT_PRODUCT_BY_ZIPCODE_TIMER = Metrics.timer("query.findMostBoughtProductByZipcode");
+    private static final Timer REVENUE_BETWEEN_TIMER = Metrics.timer("query.revenueBetween");
+    private static final Timer CALCULATE_REVENUE_PER_INTERVAL_TIMER = Metrics.timer("query.calculateRevenuePerInterval");
+    private static final CacheMetrics STATISTICS_CACHE = Metrics.cache("cache.statistics");
+    private static final CacheMetrics BILL_INDEX_CACHE = Metrics.cache("cache.billIndex");
+    private static final CacheMetrics REVENUE_TIMELINE_CACHE = Metrics.cache("cache.revenueTimeline");
+    private static final CacheMetrics COLUMNS_CACHE = Metrics.cache("cache.columns");
+    private static final CacheMetrics ZIP_CODE_INDEX_CACHE = Metrics.cache("cache.zipCodeIndex");
+    private static final CacheMetrics QUERY_CACHE = Metrics.cache("cache.queries");
+    private static final int DEFAULT_QUERY_CACHE_SIZE = 64;
+    private transient ProductCatalog catalog;           // dense ids for all products, also for products that are only found in carts
+    private transient long version;                     // raised on every change of products, customers or their carts
+    private transient SupermarketStatistics statistics; // statistics of the customers, valid while statisticsVersion equals version
+    private transient long statisticsVersion = -1;
+    private transient BillIndex billIndex;              // bills of the customers in order, valid while billIndexVersion equals version
+    private transient long billIndexVersion = -1;
+    private transient List<Customer> billIndexAdditions; // customers added since billIndex was built, null after a removal
+    private transient RevenueTimeline revenueTimeline;  // revenue over arrival time, valid while revenueTimelineVersion equals version
+    private transient long revenueTimelineVersion = -1;
+    private transient boolean columnarStore;            // when true the statistics are calculated on the column store
+    private transient CustomerColumns columns;          // customers as primitive columns, valid while columnsVersion equals version
+    private transient long columnsVersion = -1;
+    private transient ForkJoinPool pool;                // when not null the statistics are aggregated in parallel on this pool
+    private transient boolean incremental;              // when true every added customer updates the live statistics right away
+    private transient StatisticsAggregator liveStatistics; // running totals of all customers, null until needed or after a removal
+    private transient RevenueBuckets liveRevenue;       // running revenue per second, null until needed or after a removal
+    private transient ZipCodeDictionary zipCodes;       // one instance per zip code of the customers
+    private transient ZipCodeIndex zipCodeIndex;        // totals per postcode range, valid while zipCodeIndexVersion equals version
+    private transient long zipCodeIndexVersion = -1;
+    private transient QueryCache queryCache;           // results of queries with parameters, for the current version
 
     // Extra's for clean formatting
     final String BOLD = "\033[1m";
@@ -37,16 +88,240 @@ public class Supermarket {
     }
 
     public void initializeCollections() {
-        products = new HashSet<>(); // Initializing products as HashShet for products because products are unique.
-        customers = new TreeSet<>(); // Iniializing customers as TreeSet because I need to sort them by order (queuedAt).
+        catalog = new ProductCatalog();
+        zipCodes = new ZipCodeDictionary();
+        queryCache = new QueryCache(queryCache == null ? DEFAULT_QUERY_CACHE_SIZE : queryCache.getMaxSize(), QUERY_CACHE);
+        products = new VersionedSet<>(new HashSet<>(), this::markChanged, catalog::register); // Initializing products as HashShet for products because products are unique.
+        if (customers != null) {
+            customers.forEach(customer -> customer.removedFromSupermarket(this)); // Their cart changes don't concern this supermarket anymore.
+        }
+        customers = new VersionedSet<>(new TreeSet<>(), this::markChanged, this::customerAdded, this::customerRemoved); // Iniializing customers as TreeSet because I need to sort them by order (queuedAt).
+        customerRemoved(); // The old customers are gone, so nothing built from them can be extended.
+        markChanged();
     }
 
-    public int getTotalNumberOfItems() {
-        int totalItems = 0;
-        for (Customer customer : customers) {
-            totalItems += customer.getNumberOfItems(); // Loops over all customers and then per customer calls the getNumberOfItems method and adds this to the sum.
+    private void markChanged() {
+        version++;
+    }
+
+    /**
+     * @return the version that cached results should have to be up to date
+     */
+    private long currentVersion() {
+        return version;
+    }
+
+    /**
+     * called by a customer of this supermarket when its cart changed, other supermarkets keep their results
+     */
+    void cartChanged() {
+        customerRemoved(); // Running totals can't take back the old cart, they are rebuilt when they are needed again.
+        markChanged();
+    }
+
+    private void customerAdded(Customer customer) {
+        customer.internCart(catalog); // Carts get the catalog instance of every product.
+        customer.addedToSupermarket(this);
+        customer.internZipCode(zipCodes);
+        if (liveStatistics != null) {
+            liveStatistics.add(customer); // O(cart size), the other customers aren't visited.
+            liveRevenue.add(customer);
+        }
+        if (billIndexAdditions != null) {
+            billIndexAdditions.add(customer); // Merged into the bill index when it is needed again.
+        }
+    }
+
+    private void customerRemoved(Customer customer) {
+        customer.removedFromSupermarket(this);
+        customerRemoved();
+    }
+
+    private void customerRemoved() {
+        liveStatistics = null; // Running totals can't subtract a customer, they are rebuilt when they are needed again.
+        liveRevenue = null;
+        billIndexAdditions = null; // The bill index can't take out a customer either, it is sorted again.
+    }
+
+    /**
+     * adds a customer, in incremental mode the statistics are updated right away
+     * @return true if the customer was added, false if there already is a customer with the same queuedAt
+     */
+    public boolean addCustomer(Customer customer) {
+        return customers.add(customer);
+    }
+
+    /**
+     * Switches the incremental mode. In incremental mode every added customer updates running totals of all statistics
+     * and the revenue per second, so queries never rescan the customers. Removing a customer rebuilds the totals once.
+     */
+    public void useIncrementalStatistics(boolean incremental) {
+        this.incremental = incremental;
+        statistics = null;
+        if (incremental) {
+            ensureLiveStatistics();
+        } else {
+            customerRemoved();
+        }
+    }
+
+    private void ensureLiveStatistics() {
+        currentVersion();
+        if (liveStatistics == null) {
+            liveStatistics = new StatisticsAggregator(catalog);
+            liveRevenue = new RevenueBuckets();
+            for (Customer customer : customers) {
+                liveStatistics.add(customer);
+                liveRevenue.add(customer);
+            }
+        }
+    }
+
+    /**
+     * Gives the statistics of all customers, collected in a single pass. The snapshot is reused until
+     * products or customers are added or removed, so customers should be complete before they are added.
+     * @return statistics of the current customers
+     */
+    public SupermarketStatistics getStatistics() {
+        if (statistics == null || statisticsVersion != currentVersion()) {
+            STATISTICS_CACHE.miss();
+            if (incremental) {
+                ensureLiveStatistics();
+                statistics = liveStatistics.build(); // Only copies the running totals.
+            } else if (columnarStore) {
+                statistics = getColumns().computeStatistics();
+            } else {
+                statistics = StatisticsAggregator.aggregate(customers.toArray(new Customer[0]), catalog, pool);
+            }
+            statisticsVersion = currentVersion();
+        } else {
+            STATISTICS_CACHE.hit();
+        }
+        return statistics;
+    }
+
+    /**
+     * Sets the number of threads that aggregate the statistics. With more than one thread the customers are split
+     * in parts that are counted on a fork-join pool and merged in order, giving exactly the same results.
+     * @param parallelism number of threads, 1 for the sequential aggregation
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism should be at least 1: " + parallelism);
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+        pool = parallelism == 1 ? null : new ForkJoinPool(parallelism);
+        statistics = null;
+    }
+
+    /**
+     * switches the analytics to the column store. The columns are built once (right away) and rebuilt
+     * only after products or customers change.
+     */
+    public void useColumnarStore(boolean columnarStore) {
+        this.columnarStore = columnarStore;
+        statistics = null;
+        if (columnarStore) {
+            getColumns();
+        }
+    }
+
+    /**
+     * Sets how many results of queries with parameters, like calculateRevenuePerInterval(15), are kept.
+     * The least recently used result is dropped first, and all results are dropped once products or customers change.
+     * @param size maximum number of results, 0 to keep none
+     */
+    public void setQueryCacheSize(int size) {
+        queryCache.setMaxSize(size);
+    }
+
+    /**
+     * Gives the customers as primitive columns. Built once and reused until products or customers change.
+     * @return column store of the current customers
+     */
+    public CustomerColumns getColumns() {
+        if (columns == null || columnsVersion != currentVersion()) {
+            COLUMNS_CACHE.miss();
+            columns = new CustomerColumns(customers, catalog);
+            columnsVersion = currentVersion();
+        } else {
+            COLUMNS_CACHE.hit();
+        }
+        return columns;
+    }
+
+    /**
+     * Gives the bills of all customers in sorted order. Built once and reused until products or customers change.
+     * Customers that were only added since are merged into it, after a removal or cart change it is sorted again.
+     * @return bill index of the current customers
+     */
+    public BillIndex getBillIndex() {
+        if (billIndex == null || billIndexVersion != currentVersion()) {
+            BILL_INDEX_CACHE.miss();
+            billIndex = billIndex == null || billIndexAdditions == null ? new BillIndex(customers) : billIndex.withCustomers(billIndexAdditions);
+            billIndexAdditions = new ArrayList<>();
+            billIndexVersion = currentVersion();
+        } else {
+            BILL_INDEX_CACHE.hit();
+        }
+        return billIndex;
+    }
+
+    /**
+     * getStatistics timed by the timer of the query that uses it, without a lambda so nothing is allocated per call
+     */
+    private SupermarketStatistics getStatistics(Timer timer) {
+        long start = timer.start();
+        try {
+            return getStatistics();
+        } finally {
+            timer.stop(start);
+        }
+    }
+
+    private BillIndex getBillIndex(Timer timer) {
+        long start = timer.start();
+        try {
+            return getBillIndex();
+        } finally {
+            timer.stop(start);
+        }
+    }
+
+    /**
+     * Gives the revenue over the arrival times of the customers. Built once and reused until products or customers change.
+     * @return revenue timeline of the current customers
+     */
+    public RevenueTimeline getRevenueTimeline() {
+        if (revenueTimeline == null || revenueTimelineVersion != currentVersion()) {
+            REVENUE_TIMELINE_CACHE.miss();
+            revenueTimeline = new RevenueTimeline(customers);
+            revenueTimelineVersion = currentVersion();
+        } else {
+            REVENUE_TIMELINE_CACHE.hit();
+        }
+        return revenueTimeline;
+    }
+
+    /**
+     * Gives the revenue, customers and products per postcode prefix or range. Built once and reused until products or customers change.
+     * @return postcode index of the current customers
+     */
+    public ZipCodeIndex getZipCodeIndex() {
+        if (zipCodeIndex == null || zipCodeIndexVersion != currentVersion()) {
+            ZIP_CODE_INDEX_CACHE.miss();
+            zipCodeIndex = new ZipCodeIndex(customers, catalog);
+            zipCodeIndexVersion = currentVersion();
+        } else {
+            ZIP_CODE_INDEX_CACHE.hit();
         }
-        return totalItems;
+        return zipCodeIndex;
+    }
+
+    public int getTotalNumberOfItems() {
+        return getStatistics().getTotalNumberOfItems();
     }
 
     private void printErrorMessage() {
@@ -66,18 +341,16 @@ public class Supermarket {
             printErrorMessage();
             return;
         }
+        SupermarketStatistics statistics = getStatistics(); // One snapshot for the whole report.
         System.out.printf("%s\n>>>>> Customer Statistics of '%s' between %s and %s <<<<< %s\n",
                 BOLD, this.name, this.openTime, this.closingTime, RESET);
         System.out.printf("\n%d customers have shopped %d items out of %d different products\n",
-                this.customers.size(), this.getTotalNumberOfItems(), this.products.size());
+                this.customers.size(), statistics.getTotalNumberOfItems(), this.products.size());
         System.out.println();
 
-        Customer customerWithHighestBill = customers.stream() // Creating stream of customers
-                        .filter(customer -> customer.calculateTotalBill() == findHighestBill())
-                        .findFirst() // Finding first customer that matches the filter. Originally wanted to make a List but Gerke said it was ok to find the first that matches.
-                        .orElse(null); // If no customer it ll return Null.
-        
-        System.out.printf("Customer that has the highest bill of %.2f euro: \n", findHighestBill());
+        Customer customerWithHighestBill = statistics.getMostPayingCustomer(); // First customer with the highest bill, found in the same pass as the highest bill. Null if there are no customers.
+
+        System.out.printf("Customer that has the highest bill of %.2f euro: \n", statistics.getHighestBill());
         System.out.println(customerWithHighestBill != null ? customerWithHighestBill : "No customer! Check if anything went wrong!"); // Ternary statement instead of If/Else: If customer = notNull > Print the customer. If null > print no customer message.
 
 
@@ -93,11 +366,12 @@ public class Supermarket {
             printErrorMessage();
             return;
         }
+        SupermarketStatistics statistics = getStatistics(); // One snapshot for the whole report.
         System.out.printf("%s\n>>>>> Product Statistics of all purchases <<<<<%s\n", BOLD, RESET);
         System.out.println();
         System.out.println(">>> Products and total number bought:");
 
-        Map <Product, Integer> productCounts = findNumberOfProductsBought();
+        Map <Product, Integer> productCounts = statistics.getNumberOfProductsBought();
         for (Map.Entry<Product, Integer> entry : productCounts.entrySet()) {
             System.out.printf("%-35s %10d\n",entry.getKey().getDescription(), entry.getValue());
         }
@@ -105,7 +379,7 @@ public class Supermarket {
         System.out.println();
         System.out.printf("%s>>> Products and zipcodes%s\n", BOLD, RESET);
 
-        Map<Product, Set<String>> zipCodesPerProduct = findZipcodesPerProduct();
+        Map<Product, Set<String>> zipCodesPerProduct = statistics.getZipcodesPerProduct();
         for (Map.Entry<Product, Set<String>> entry : zipCodesPerProduct.entrySet()) {
             System.out.println(entry.getKey().getDescription() + ":");
 
@@ -129,13 +403,13 @@ public class Supermarket {
         System.out.println();
 
         System.out.println("Product(s) bought by most customers: ");
-        Set<Product> mostPopularProduct = findMostPopularProducts();
+        Set<Product> mostPopularProduct = statistics.getMostPopularProducts();
         mostPopularProduct.forEach(product -> System.out.println(product.getDescription()));
         System.out.println();
 
         System.out.printf("%s>>> Most bought products per zipcode %s\n", BOLD, RESET);
         System.out.println();
-        Map<String, Product> mostPopularByPostCode = findMostBoughtProductByZipcode();
+        Map<String, Product> mostPopularByPostCode = statistics.getMostBoughtProductByZipcode();
         mostPopularByPostCode.forEach((postCode, product) -> System.out.println(postCode + " - " + product.getDescription()));
 
 
@@ -147,14 +421,15 @@ public class Supermarket {
      * report statistics of the input data of customer
      */
     public void printRevenueStatistics() {
+        SupermarketStatistics statistics = getStatistics(); // One snapshot for the whole report.
         System.out.printf("%s\n>>>>> Revenue Statistics of all purchases <<<<< %s\n", BOLD, RESET);
 
-        System.out.printf("\nTotal revenue = %.2f\nAverage revenue per customer = %.2f\n", findTotalRevenue(), findAverageRevenue());
+        System.out.printf("\nTotal revenue = %.2f\nAverage revenue per customer = %.2f\n", statistics.getTotalRevenue(), statistics.getAverageRevenue());
         System.out.println();
         System.out.printf("%s>>> Revenues per zip-code:%s\n", BOLD, RESET);
         System.out.println();
 
-        Map<String, Double> revenues = this.getRevenueByZipcode(); // Code was already supplied: Creates TreeMap (to sort automatically) called revenues.
+        Map<String, Double> revenues = statistics.getRevenueByZipcode(); // Code was already supplied: Creates TreeMap (to sort automatically) called revenues.
         revenues.entrySet().stream() // Creating a stream from TreeMap revenues.
                         .sorted(Map.Entry.comparingByKey()) // Sorts the map, but I'm not sure if I need it since a TreeMap should sort automatically? TODO: TEST WITH REMOVING THIS!!!
                         .forEach(entry -> System.out.printf("%-7s -  %.2f\n", entry.getKey(), entry.getValue())); // ForEach loop that prints all the keys (postalcode) and then the values (revenue). Using print format or values are not rounded to 2 after decimal.
@@ -173,16 +448,7 @@ public class Supermarket {
      * @return Map with total number of purchases per product
      */
     public Map<Product, Integer> findNumberOfProductsBought() {
-
-        Map<Product, Integer> productCounter = new HashMap<>();
-        for (Customer customer : customers) {
-            for (Map.Entry<Product, Integer> entry : customer.getItemsCart().entrySet()) {
-                Product product = entry.getKey();
-                int quantity = entry.getValue();
-                productCounter.put(product, productCounter.getOrDefault(product, 0) + quantity);
-            }
-        }
-        return productCounter;
+        return getStatistics(FIND_NUMBER_OF_PRODUCTS_BOUGHT_TIMER).getNumberOfProductsBought();
     }
 
     /**
@@ -190,16 +456,7 @@ public class Supermarket {
      * @return Map with set of zipcodes per product
      */
     public Map<Product, Set<String>> findZipcodesPerProduct() {
-        Map<Product, Set<String>> zipCodesPerProduct = new HashMap<>();
-        for (Customer customer : customers) {
-            String zipCode = customer.getZipCode();
-            for (Product product : customer.getItemsCart().keySet()) {
-
-                // Original code: zipCodesPerProduct.put(product, zipCodesPerProduct.getOrDefault(product, new HashSet<>()));
-                zipCodesPerProduct.computeIfAbsent(product, k -> new HashSet<>()).add(zipCode);
-            }
-        }
-        return zipCodesPerProduct;
+        return getStatistics(FIND_ZIPCODES_PER_PRODUCT_TIMER).getZipcodesPerProduct();
     }
 
     /**
@@ -207,23 +464,7 @@ public class Supermarket {
      * @return Map with map of product and number per zipcode
      */
     public Map<String, Map<Product, Integer>> findNumberOfProductsByZipcode() {
-        Map<String, Map<Product, Integer>> productsByZipCode = new HashMap<>();
-        for (Customer customer : customers) {
-            String zipCode = customer.getZipCode();
-
-            // Retrieving or creating new map for the postal code:
-            Map<Product, Integer> productCounter = productsByZipCode.computeIfAbsent(zipCode, k -> new HashMap<>());
-
-            // Iterates through the items in the shopping cart:
-            for (Map.Entry<Product, Integer> entry : customer.getItemsCart().entrySet()) {
-                Product product = entry.getKey();
-                int quantity = entry.getValue();
-
-                // Putting new products in map or updating existing count.
-                productCounter.put(product, productCounter.getOrDefault(product, 0) + quantity);
-            }
-        }
-        return productsByZipCode;
+        return getStatistics(FIND_NUMBER_OF_PRODUCTS_BY_ZIPCODE_TIMER).getNumberOfProductsByZipcode();
     }
 
     /**
@@ -231,10 +472,7 @@ public class Supermarket {
      * @return value of the highest bill
      */
     public double findHighestBill() {
-        return customers.stream() // Creating a stream of Customers
-                .mapToDouble(Customer::calculateTotalBill) // Applying calculateTotalBill method to all the customers in the stream and converting this to a double.
-                .max() // Finding this max value in the stream.
-                .orElse(0.0); // If empty provided value of 0.0 so no crashes happen.
+        return getStatistics(FIND_HIGHEST_BILL_TIMER).getHighestBill();
     }
 
     /**
@@ -243,21 +481,44 @@ public class Supermarket {
      */
 
     public Customer findMostPayingCustomer() {
-        double biggestBill = findHighestBill(); // Using method findHighestBill to get the biggest bill.
-        return customers.stream() // Creating a stream of customers.
-                .filter (customer -> customer.calculateTotalBill() == biggestBill) // With this filter I only keep the customer that matches the biggestBill double.
-                .findFirst() // Finds the first customer that matches the filter.
-                .orElse(null); // Returns null if there's no customer.
-         }
+        return getStatistics(FIND_MOST_PAYING_CUSTOMER_TIMER).getMostPayingCustomer(); // The first customer with the highest bill, null if there are no customers.
+    }
+
+    /**
+     * finds the customers with the highest bills, customers with equal bills are in queuedAt order
+     * @return list with at most number customers, highest bill first
+     */
+    public List<Customer> findTopPayingCustomers(int number) {
+        long start = FIND_TOP_PAYING_CUSTOMERS_TIMER.start();
+        try {
+            return queryCache.get(currentVersion(), Arrays.asList("findTopPayingCustomers", number), () -> getBillIndex().getTopPayingCustomers(number));
+        } finally {
+            FIND_TOP_PAYING_CUSTOMERS_TIMER.stop(start);
+        }
+    }
+
+    /**
+     * finds the bill at a percentile of all bills, for example 50 for the median or 99 for the p99 bill
+     * @return value of the bill at the percentile
+     */
+    public double findBillPercentile(double percentile) {
+        return getBillIndex(FIND_BILL_PERCENTILE_TIMER).getPercentile(percentile);
+    }
 
     /**
      * calculates the total revenue of all customers purchases
      * @return total revenue
      */
     public double findTotalRevenue() {
-        return customers.stream()// Creating a stream of customers
-                .mapToDouble(Customer::calculateTotalBill) // Applying calculateTtotalBill to all Customers so it gets the total bill.
-                .sum(); // Finally returns the sum
+        return getStatistics(FIND_TOTAL_REVENUE_TIMER).getTotalRevenue();
+    }
+
+    /**
+     * calculates the total revenue of all customers purchases in whole cents, without rounding errors
+     * @return total revenue in cents
+     */
+    public long findTotalRevenueInCents() {
+        return getStatistics(FIND_TOTAL_REVENUE_IN_CENTS_TIMER).getTotalRevenueInCents();
     }
 
     /**
@@ -265,7 +526,7 @@ public class Supermarket {
      * @return average revenue
      */
     public double findAverageRevenue() {
-        return customers.isEmpty() ? 0.0 : findTotalRevenue() / customers.size(); // Returns 0 if no customers, using findTotalRevenue and dividing it by size of customer list to divide.
+        return getStatistics(FIND_AVERAGE_REVENUE_TIMER).getAverageRevenue(); // Returns 0 if no customers.
     }
 
     /**
@@ -273,10 +534,15 @@ public class Supermarket {
      * @return Map with revenues per zip code
      */
     public Map<String, Double> getRevenueByZipcode() {
-        return customers.stream() // Creating customer stream
-                .collect(Collectors.groupingBy(Customer::getZipCode, // Grouping the stream of customer by zipCode
-                        TreeMap::new, // Creating a new treeMap gather the results and have them sorted.
-                        Collectors.summingDouble(Customer::calculateTotalBill))); // For all postcodes the totalBill will be added to the sum.
+        return getStatistics(GET_REVENUE_BY_ZIPCODE_TIMER).getRevenueByZipcode();
+    }
+
+    /**
+     * calculates a map of aggregated revenues in cents per zip code that is also ordered by zip code
+     * @return Map with revenues in cents per zip code
+     */
+    public Map<String, Long> getRevenueByZipcodeInCents() {
+        return getStatistics(GET_REVENUE_BY_ZIPCODE_IN_CENTS_TIMER).getRevenueByZipcodeInCents();
     }
 
     /**
@@ -284,45 +550,17 @@ public class Supermarket {
      * @return Set with products bought by most customers
      */
     public Set<Product> findMostPopularProducts() {
-        Map<Product, Long> popularProduct = customers.stream() // Creates HashMap popularProcut. Will store the popularity in here. Keys = Product, Value = Long(Integer)
-                .flatMap(customer -> customer.getItemsCart().keySet().stream()) // keySet.stream extract the key (so Product), flatMap combines the individual products to a single stream from all customers.
-                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting())); // Collecting all elements in the stream into the map. With function.identity each product is grouped by itself. With counting it counts the amount of times it's in the stream.
-
-        long popularMax = popularProduct.values().stream() // Creating a stream for a Long(int) value
-                .max(Long::compareTo) // Finding the max popularity in all the products in the stream
-                .orElse(0L); // Returns 0 if no products again.
-
-        return popularProduct.entrySet().stream() // Creates a stream of the popularProduct map (key value pair = Product & Long)
-                .filter(entry -> entry.getValue() == popularMax) // Filtering all entries, will only keep the entries where popularity count equals popularMax.
-                .map(Map.Entry::getKey) // Maps the product object from the filter
-                .collect(Collectors.toSet()); // Collects the result of the most popular product in a set.
+        return getStatistics(FIND_MOST_POPULAR_PRODUCTS_TIMER).getMostPopularProducts();
     }
 
     /**
      *
      * calculates a map of most bought products per zip code that is also ordered by zip code
-     * if multiple products have the same maximum count, just pick one.
+     * if multiple products have the same maximum count, the product with the lowest code is picked.
      * @return Map with most bought product per zip code
      */
     public Map<String, Product> findMostBoughtProductByZipcode() {
-        Map<String, Product> mostBoughtByZipcode = new TreeMap<>(); // TreemMap to store postcodes as key.
-        Map<String, Map<Product, Integer>> productsByZipcode = findNumberOfProductsByZipcode(); // Creating a HashMap with method findNumberOfProductsByZipCode. Keys will be postcodes(string), the value of the map is another map with Product& Integer.
-
-        for (Map.Entry<String, Map<Product, Integer>> entry : productsByZipcode.entrySet()) { // For loop that goes over all the key value pairs in productsByZipCode.
-            String postCode = entry.getKey(); // Gets the current postcode
-            Map<Product, Integer> productCounter = entry.getValue(); // Gets the map of the product for the zipcode (the 2nd Map I created on line 292)
-
-            int maxQuantity = productCounter.values().stream().max(Integer::compareTo).orElse(0); // Creating a stream of values from the productCounter map. max = find maximum quantitiy in the stream in Integer, orElse returns 0 if no one purchased anything.
-
-            Product mostPurchased = productCounter.entrySet().stream() // Creating a stream of productCounter items.
-                    .filter(product -> product.getValue() == maxQuantity) // Filter to only keep items where the quantity is equal to maxQuantity.
-                    .map(Map.Entry::getKey) // Extracts a product from the filtered entry.
-                    .findFirst() // Gets the first product that matches the filter.
-                    .orElse(null); // Again returns null if nothing is purchased in a postcode.
-
-            mostBoughtByZipcode.put(postCode, mostPurchased); // Storing the postCode(string) and mostPurchased (Product object)
-        }
-        return mostBoughtByZipcode;
+        return getStatistics(FIND_MOST_BOUGHT_PRODUCT_BY_ZIPCODE_TIMER).getMostBoughtProductByZipcode();
     }
 
     /**
@@ -331,24 +569,77 @@ public class Supermarket {
      * @return Map with revenues per interval
      */
     public Map<LocalTime, Double> calculateRevenuePerInterval(int minutes) {
+        if (minutes <= 0) {
+            throw new IllegalArgumentException("Interval should be at least one minute: " + minutes);
+        }
+        // Opening and closing time are part of the key, they can change without a new version.
+        long start = CALCULATE_REVENUE_PER_INTERVAL_TIMER.start();
+        try {
+            return queryCache.get(currentVersion(), Arrays.asList("calculateRevenuePerInterval", minutes, openTime, closingTime),
+                    () -> Collections.unmodifiableMap(revenuePerInterval(minutes)));
+        } finally {
+            CALCULATE_REVENUE_PER_INTERVAL_TIMER.stop(start);
+        }
+    }
+
+    private Map<LocalTime, Double> revenuePerInterval(int minutes) {
         Map<LocalTime, Double> revenuePerInterval = new TreeMap<>(); // Map initialized which will get a time(LocalDate) as key and a revenue(double) as value. Switched to TreeMap to fix sorting in output.
         LocalTime currentTime = openTime; // Opening time of the supermarket becomes currentTime.
 
         while (currentTime.isBefore(closingTime)) { // While loop that goes over all periods before the closing time.
             LocalTime intervalEnd = currentTime.plusMinutes(minutes); // Calculates end time of current interval by adding the parsed minutes to the currentTime.
 
-            LocalTime finalCurrentTime = currentTime; // Need this in the upcoming Lambda expression to set interval start time.
-            double intervalRevenue = customers.stream() // Creating a stream of customers.
-                    .filter(customer -> !customer.getQueuedAt().isBefore(finalCurrentTime) && customer.getQueuedAt().isBefore(intervalEnd)) // Checking that arrival time is not before the start time set in finalCurrentTime and arrives before end of intervalEnd.
-                    .mapToDouble(Customer::calculateTotalBill) // For each customer the method calculates their total bill.
-                    .sum();
-
-            revenuePerInterval.put(currentTime, intervalRevenue); // Adds the time and revenue from the interval to the map.
+            if (!intervalEnd.isAfter(currentTime)) { // The interval passes midnight, so it's the last one.
+                revenuePerInterval.put(currentTime, Money.toEuros(revenueInCentsBetween(currentTime, null)));
+                break;
+            }
+            revenuePerInterval.put(currentTime, Money.toEuros(revenueInCentsBetween(currentTime, intervalEnd))); // Adds the time and revenue from the interval to the map.
             currentTime = intervalEnd; // Goes to the next interval and keeps going as long as it's before closingTime.
         }
         return revenuePerInterval;
     }
 
+    /**
+     * calculates the revenue of the customers that queued between two times
+     * @return revenue of customers with from <= queuedAt < to
+     */
+    public double revenueBetween(LocalTime from, LocalTime to) {
+        long start = REVENUE_BETWEEN_TIMER.start();
+        try {
+            return Money.toEuros(revenueInCentsBetween(from, to)); // Already a lookup in O(log n), not worth a cache entry.
+        } finally {
+            REVENUE_BETWEEN_TIMER.stop(start);
+        }
+    }
+
+    /**
+     * Revenue with from <= queuedAt < to (midnight when to is null). Each interval is looked up in the running revenue per second
+     * in incremental mode, otherwise with two binary searches in the revenue timeline, never with a pass over all customers.
+     */
+    private long revenueInCentsBetween(LocalTime from, LocalTime to) {
+        if (incremental && from.getNano() == 0 && (to == null || to.getNano() == 0)) { // Buckets are whole seconds.
+            ensureLiveStatistics();
+            return liveRevenue.revenueInCentsBetween(from, to);
+        }
+        RevenueTimeline timeline = getRevenueTimeline();
+        return to == null ? timeline.revenueInCentsFrom(from) : timeline.revenueInCentsBetween(from, to);
+    }
+
+    /**
+     * @return catalog with the dense ids of all products of this supermarket
+     */
+    public ProductCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * finds a product by its code in O(1), also products that are only found in the carts of customers
+     * @return the product with the code, null if there is none
+     */
+    public Product getProduct(String code) {
+        return catalog.getProduct(code);
+    }
+
     public Set<Product> getProducts() {
         return products;
     }
@@ -357,6 +648,18 @@ public class Supermarket {
         return customers;
     }
 
+    public String getName() {
+        return name;
+    }
+
+    public LocalTime getOpenTime() {
+        return openTime;
+    }
+
+    public LocalTime getClosingTime() {
+        return closingTime;
+    }
+
     public void setOpenTime(LocalTime openTime) {
         this.openTime = openTime;
     }
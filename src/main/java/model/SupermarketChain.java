@@ -0,0 +1,138 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Statistics of a chain of stores. Only the statistics of every store are kept, not its customers.
+ * Statistics of parts can be combined in any grouping, so the chain statistics are updated with just the
+ * added store, and the other stores are only combined again after a store is removed.
+ */
+public class SupermarketChain {
+    private final Map<String, SupermarketStatistics> stores = new LinkedHashMap<>(); // statistics per store name, in the order stores were added
+    private SupermarketStatistics chainStatistics;          // combined statistics of all stores, null when outdated
+
+    /**
+     * adds the customers of a store to the chain, the customers themselves aren't kept
+     */
+    public void addStore(Supermarket supermarket) {
+        addStore(supermarket.getName(), supermarket.getStatistics());
+    }
+
+    /**
+     * adds statistics of a store to the chain. Statistics of a store that is already in the chain,
+     * for example of another day, are combined with the statistics it already has.
+     */
+    public void addStore(String name, SupermarketStatistics statistics) {
+        stores.merge(name, statistics, (known, added) -> SupermarketStatistics.combine(List.of(known, added)));
+        if (chainStatistics != null) {
+            chainStatistics = SupermarketStatistics.combine(List.of(chainStatistics, statistics));
+        }
+    }
+
+    /**
+     * @return true if the store was in the chain
+     */
+    public boolean removeStore(String name) {
+        if (stores.remove(name) == null) {
+            return false;
+        }
+        chainStatistics = null; // A removed part can't be subtracted, so the other stores are combined again when needed.
+        return true;
+    }
+
+    /**
+     * @return statistics of all customers of all stores
+     */
+    public SupermarketStatistics getStatistics() {
+        if (chainStatistics == null) {
+            chainStatistics = SupermarketStatistics.combine(stores.values());
+        }
+        return chainStatistics;
+    }
+
+    /**
+     * @return statistics of the store, null if the store isn't in the chain
+     */
+    public SupermarketStatistics getStoreStatistics(String name) {
+        return stores.get(name);
+    }
+
+    public Set<String> getStoreNames() {
+        return Collections.unmodifiableSet(stores.keySet());
+    }
+
+    public int getNumberOfStores() {
+        return stores.size();
+    }
+
+    public double findTotalRevenue() {
+        return getStatistics().getTotalRevenue();
+    }
+
+    public long findTotalRevenueInCents() {
+        return getStatistics().getTotalRevenueInCents();
+    }
+
+    /**
+     * @return revenue in cents per store, in the order stores were added
+     */
+    public Map<String, Long> getRevenueByStoreInCents() {
+        Map<String, Long> revenueByStore = new LinkedHashMap<>();
+        stores.forEach((name, statistics) -> revenueByStore.put(name, statistics.getTotalRevenueInCents()));
+        return revenueByStore;
+    }
+
+    /**
+     * @return revenue per zip code of all stores together, ordered by zip code
+     */
+    public Map<String, Double> getRevenueByZipcode() {
+        return getStatistics().getRevenueByZipcode();
+    }
+
+    public Map<String, Long> getRevenueByZipcodeInCents() {
+        return getStatistics().getRevenueByZipcodeInCents();
+    }
+
+    public Map<Product, Integer> findNumberOfProductsBought() {
+        return getStatistics().getNumberOfProductsBought();
+    }
+
+    /**
+     * @return product(s) in the most carts of all stores together
+     */
+    public Set<Product> findMostPopularProducts() {
+        return getStatistics().getMostPopularProducts();
+    }
+
+    /**
+     * finds the products that are in the most carts of all stores together, on equal counts the lowest code goes first
+     * @return at most number products, most popular first
+     */
+    public List<Product> findTopProducts(int number) {
+        Map<Product, Integer> customersPerProduct = getStatistics().getNumberOfCustomersPerProduct();
+        List<Product> products = new ArrayList<>(customersPerProduct.keySet());
+        products.sort(Comparator.comparing((Product product) -> customersPerProduct.get(product)).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        return new ArrayList<>(products.subList(0, Math.min(Math.max(number, 0), products.size())));
+    }
+
+    public Map<String, Product> findMostBoughtProductByZipcode() {
+        return getStatistics().getMostBoughtProductByZipcode();
+    }
+
+    public Customer findMostPayingCustomer() {
+        return getStatistics().getMostPayingCustomer();
+    }
+}
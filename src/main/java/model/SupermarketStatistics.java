@@ -0,0 +1,201 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable snapshot of all statistics of the customers of a supermarket.
+ * Made by a StatisticsAggregator, so all values come from the same single pass over the customers.
+ */
+public final class SupermarketStatistics {
+    private final int numberOfCustomers;
+    private final int totalNumberOfItems;
+    private final long totalRevenueInCents;
+    private final long highestBillInCents;
+    private final Customer mostPayingCustomer;
+    private final Map<Product, Integer> productsBought;
+    private final Map<Product, Integer> customersPerProduct;
+    private final Map<String, Map<Product, Integer>> productsByZipcode;
+    private final Map<Product, Set<String>> zipcodesPerProduct;
+    private final Map<String, Long> revenueByZipcodeInCents;
+    private final Map<String, Double> revenueByZipcode;
+    private final Set<Product> mostPopularProducts;
+    private final Map<String, Product> mostBoughtProductByZipcode;
+
+    SupermarketStatistics(int numberOfCustomers, int totalNumberOfItems, long totalRevenueInCents, long highestBillInCents,
+                          Customer mostPayingCustomer, Map<Product, Integer> productsBought,
+                          Map<Product, Integer> customersPerProduct, Map<String, Map<Product, Integer>> productsByZipcode,
+                          Map<String, Long> revenueByZipcodeInCents) {
+        this.numberOfCustomers = numberOfCustomers;
+        this.totalNumberOfItems = totalNumberOfItems;
+        this.totalRevenueInCents = totalRevenueInCents;
+        this.highestBillInCents = highestBillInCents;
+        this.mostPayingCustomer = mostPayingCustomer;
+        this.productsBought = Collections.unmodifiableMap(new HashMap<>(productsBought));
+        this.customersPerProduct = Collections.unmodifiableMap(new HashMap<>(customersPerProduct));
+        this.revenueByZipcodeInCents = Collections.unmodifiableMap(new TreeMap<>(revenueByZipcodeInCents));
+        Map<String, Double> revenueInEuros = new TreeMap<>();
+        revenueByZipcodeInCents.forEach((zipCode, revenue) -> revenueInEuros.put(zipCode, Money.toEuros(revenue)));
+        this.revenueByZipcode = Collections.unmodifiableMap(revenueInEuros);
+
+        Map<String, Map<Product, Integer>> byZipcode = new HashMap<>();
+        Map<Product, Set<String>> zipcodes = new HashMap<>();
+        Map<String, Product> mostBought = new TreeMap<>();
+        for (Map.Entry<String, Map<Product, Integer>> entry : productsByZipcode.entrySet()) {
+            String zipCode = entry.getKey();
+            byZipcode.put(zipCode, Collections.unmodifiableMap(new HashMap<>(entry.getValue())));
+            entry.getValue().keySet().forEach(product -> zipcodes.computeIfAbsent(product, k -> new HashSet<>()).add(zipCode));
+            mostBought.put(zipCode, findMostBought(entry.getValue()));
+        }
+        zipcodes.replaceAll((product, zipCodes) -> Collections.unmodifiableSet(zipCodes));
+        this.productsByZipcode = Collections.unmodifiableMap(byZipcode);
+        this.zipcodesPerProduct = Collections.unmodifiableMap(zipcodes);
+        this.mostBoughtProductByZipcode = Collections.unmodifiableMap(mostBought);
+        this.mostPopularProducts = Collections.unmodifiableSet(findMostPopular(customersPerProduct));
+    }
+
+    /**
+     * combines the statistics of separate groups of customers, for example of separate threads or stores,
+     * into the statistics of all their customers. Products are matched by code.
+     * @return statistics of all customers of the parts
+     */
+    public static SupermarketStatistics combine(Collection<SupermarketStatistics> parts) {
+        int numberOfCustomers = 0;
+        int totalNumberOfItems = 0;
+        long totalRevenueInCents = 0;
+        long highestBillInCents = 0;
+        Customer mostPayingCustomer = null;
+        Map<Product, Integer> productsBought = new HashMap<>();
+        Map<Product, Integer> customersPerProduct = new HashMap<>();
+        Map<String, Map<Product, Integer>> productsByZipcode = new HashMap<>();
+        Map<String, Long> revenueByZipcodeInCents = new TreeMap<>();
+        for (SupermarketStatistics part : parts) {
+            numberOfCustomers += part.numberOfCustomers;
+            totalNumberOfItems += part.totalNumberOfItems;
+            totalRevenueInCents += part.totalRevenueInCents;
+            if (part.mostPayingCustomer != null && (mostPayingCustomer == null || part.highestBillInCents > highestBillInCents
+                    || (part.highestBillInCents == highestBillInCents
+                        && StatisticsAggregator.queuedEarlier(part.mostPayingCustomer, mostPayingCustomer)))) {
+                highestBillInCents = part.highestBillInCents;
+                mostPayingCustomer = part.mostPayingCustomer;
+            }
+            part.productsBought.forEach((product, units) -> productsBought.merge(product, units, Integer::sum));
+            part.customersPerProduct.forEach((product, count) -> customersPerProduct.merge(product, count, Integer::sum));
+            part.productsByZipcode.forEach((zipCode, counter) -> {
+                Map<Product, Integer> combined = productsByZipcode.computeIfAbsent(zipCode, k -> new HashMap<>());
+                counter.forEach((product, units) -> combined.merge(product, units, Integer::sum));
+            });
+            part.revenueByZipcodeInCents.forEach((zipCode, revenue) -> revenueByZipcodeInCents.merge(zipCode, revenue, Long::sum));
+        }
+        return new SupermarketStatistics(numberOfCustomers, totalNumberOfItems, totalRevenueInCents, highestBillInCents,
+                mostPayingCustomer, productsBought, customersPerProduct, productsByZipcode, revenueByZipcodeInCents);
+    }
+
+    /**
+     * finds the product with the highest count, on equal counts the product with the lowest code is picked,
+     * so the answer doesn't depend on the order in which customers were counted.
+     * @return most bought product or null if nothing is bought
+     */
+    private static Product findMostBought(Map<Product, Integer> productCounter) {
+        Product mostBought = null;
+        int maxQuantity = 0;
+        for (Map.Entry<Product, Integer> entry : productCounter.entrySet()) {
+            int quantity = entry.getValue();
+            if (mostBought == null || quantity > maxQuantity
+                    || (quantity == maxQuantity && entry.getKey().compareTo(mostBought) < 0)) {
+                mostBought = entry.getKey();
+                maxQuantity = quantity;
+            }
+        }
+        return mostBought;
+    }
+
+    private static Set<Product> findMostPopular(Map<Product, Integer> customersPerProduct) {
+        int popularMax = 0;
+        for (int count : customersPerProduct.values()) {
+            popularMax = Math.max(popularMax, count);
+        }
+        Set<Product> mostPopular = new HashSet<>();
+        for (Map.Entry<Product, Integer> entry : customersPerProduct.entrySet()) {
+            if (entry.getValue() == popularMax) {
+                mostPopular.add(entry.getKey());
+            }
+        }
+        return mostPopular;
+    }
+
+    public int getNumberOfCustomers() {
+        return numberOfCustomers;
+    }
+
+    public int getTotalNumberOfItems() {
+        return totalNumberOfItems;
+    }
+
+    public double getTotalRevenue() {
+        return Money.toEuros(totalRevenueInCents);
+    }
+
+    public long getTotalRevenueInCents() {
+        return totalRevenueInCents;
+    }
+
+    public double getAverageRevenue() {
+        return numberOfCustomers == 0 ? 0.0 : Money.toEuros(totalRevenueInCents) / numberOfCustomers;
+    }
+
+    public double getHighestBill() {
+        return Money.toEuros(highestBillInCents);
+    }
+
+    public long getHighestBillInCents() {
+        return highestBillInCents;
+    }
+
+    public Customer getMostPayingCustomer() {
+        return mostPayingCustomer;
+    }
+
+    public Map<Product, Integer> getNumberOfProductsBought() {
+        return productsBought;
+    }
+
+    public Map<Product, Integer> getNumberOfCustomersPerProduct() {
+        return customersPerProduct;
+    }
+
+    public Map<String, Map<Product, Integer>> getNumberOfProductsByZipcode() {
+        return productsByZipcode;
+    }
+
+    public Map<Product, Set<String>> getZipcodesPerProduct() {
+        return zipcodesPerProduct;
+    }
+
+    public Map<String, Double> getRevenueByZipcode() {
+        return revenueByZipcode;
+    }
+
+    public Map<String, Long> getRevenueByZipcodeInCents() {
+        return revenueByZipcodeInCents;
+    }
+
+    public Set<Product> getMostPopularProducts() {
+        return mostPopularProducts;
+    }
+
+    public Map<String, Product> getMostBoughtProductByZipcode() {
+        return mostBoughtProductByZipcode;
+    }
+}
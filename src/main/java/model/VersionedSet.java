@@ -0,0 +1,110 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package model;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Set that reports every change to its owner, so the owner knows when results computed from the set are outdated.
+ * Newly added and removed elements are also passed to the owner.
+ * All other behaviour (ordering, duplicates) comes from the backing set.
+ */
+class VersionedSet<E> extends AbstractSet<E> {
+    private final Set<E> backing;
+    private final Runnable onChange;
+    private final Consumer<? super E> onAdd;
+    private final Consumer<? super E> onRemove;
+
+    VersionedSet(Set<E> backing, Runnable onChange) {
+        this(backing, onChange, element -> { });
+    }
+
+    VersionedSet(Set<E> backing, Runnable onChange, Consumer<? super E> onAdd) {
+        this(backing, onChange, onAdd, element -> { });
+    }
+
+    VersionedSet(Set<E> backing, Runnable onChange, Consumer<? super E> onAdd, Consumer<? super E> onRemove) {
+        this.backing = backing;
+        this.onChange = onChange;
+        this.onAdd = onAdd;
+        this.onRemove = onRemove;
+    }
+
+    Set<E> getBacking() {
+        return backing;
+    }
+
+    @Override
+    public boolean add(E element) {
+        boolean added = backing.add(element);
+        if (added) {
+            onAdd.accept(element);
+            onChange.run();
+        }
+        return added;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object element) {
+        if (!backing.contains(element)) {
+            return false;
+        }
+        E stored = backing instanceof NavigableSet ? ((NavigableSet<E>) backing).floor((E) element) : (E) element; // The instance in the set, an equal argument can be another one.
+        backing.remove(element);
+        onRemove.accept(stored);
+        onChange.run();
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        backing.forEach(onRemove);
+        backing.clear();
+        onChange.run();
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        return backing.contains(element);
+    }
+
+    @Override
+    public int size() {
+        return backing.size();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<E> iterator = backing.iterator();
+        return new Iterator<>() {
+            private E current;  // last element returned by next
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                current = iterator.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                onRemove.accept(current);
+                onChange.run();
+            }
+        };
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps one String instance per zip code and encodes Dutch postcodes (4 digits and 2 letters, like 1017AB) as an int:
+ * the digits times 676 plus the letters as a base 26 number. Codes sort like the postcodes, so all postcodes
+ * with the same prefix are one range of codes.
+ */
+public final class ZipCodeDictionary {
+    private static final int LETTER_COMBINATIONS = 26 * 26;
+    public static final int NUMBER_OF_CODES = 10000 * LETTER_COMBINATIONS;
+
+    private final Map<String, String> zipCodes = new HashMap<>();
+
+    /**
+     * @return the first instance of an equal zip code
+     */
+    public String intern(String zipCode) {
+        if (zipCode == null) {
+            return null;
+        }
+        String known = zipCodes.putIfAbsent(zipCode, zipCode);
+        return known == null ? zipCode : known;
+    }
+
+    /**
+     * @return number of different zip codes that were interned
+     */
+    public int size() {
+        return zipCodes.size();
+    }
+
+    /**
+     * @return code of a postcode written as 4 digits and 2 capital letters, -1 for any other zip code
+     */
+    public static int encode(String zipCode) {
+        if (zipCode == null || zipCode.length() != 6) {
+            return -1;
+        }
+        int code = 0;
+        for (int i = 0; i < 4; i++) {
+            char digit = zipCode.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return -1;
+            }
+            code = code * 10 + (digit - '0');
+        }
+        for (int i = 4; i < 6; i++) {
+            char letter = zipCode.charAt(i);
+            if (letter < 'A' || letter > 'Z') {
+                return -1;
+            }
+            code = code * 26 + (letter - 'A');
+        }
+        return code;
+    }
+
+    /**
+     * @return the postcode of a code
+     */
+    public static String decode(int code) {
+        if (code < 0 || code >= NUMBER_OF_CODES) {
+            throw new IllegalArgumentException("Not a postcode code: " + code);
+        }
+        int digits = code / LETTER_COMBINATIONS;
+        int letters = code % LETTER_COMBINATIONS;
+        return String.format("%04d%c%c", digits, (char) ('A' + letters / 26), (char) ('A' + letters % 26));
+    }
+
+    /**
+     * turns a postcode prefix into the range of codes that start with it. A prefix is 0 to 4 digits,
+     * or 4 digits followed by at most 2 letters, a space before the letters and lowercase letters are accepted.
+     * @return first code and the code after the last code with the prefix
+     */
+    public static int[] prefixRange(String prefix) {
+        String compact = prefix.replace(" ", "").toUpperCase();
+        int length = compact.length();
+        if (length > 6) {
+            throw new IllegalArgumentException("Not a postcode prefix: " + prefix);
+        }
+        int code = 0;
+        int span = NUMBER_OF_CODES;
+        for (int i = 0; i < length; i++) {
+            char current = compact.charAt(i);
+            boolean digit = i < 4 && current >= '0' && current <= '9';
+            boolean letter = i >= 4 && current >= 'A' && current <= 'Z';
+            if (!digit && !letter) {
+                throw new IllegalArgumentException("Not a postcode prefix: " + prefix);
+            }
+            span /= digit ? 10 : 26;
+            code += (digit ? current - '0' : current - 'A') * span;
+        }
+        return new int[] {code, code + span};
+    }
+}
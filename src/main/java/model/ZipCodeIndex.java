@@ -0,0 +1,189 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Revenue, customers and products per postcode, sorted by postcode code with prefix sums over them.
+ * A postcode prefix or a range of prefixes is a range of codes, found with two binary searches, and its totals
+ * are the difference of two prefix sums. Zip codes that aren't Dutch postcodes are left out of the index.
+ */
+public final class ZipCodeIndex {
+    private static final int MAX_PRODUCT_CELLS = 1 << 24; // bigger postcode x product tables add up the cart entries of a range instead
+
+    private final int[] codes;                  // the postcodes of the customers as code, ascending
+    private final long[] revenueBefore;         // revenue in cents of the postcodes before index i
+    private final int[] customersBefore;        // number of customers of the postcodes before index i
+    private final int[] unitsBefore;            // row i holds the units per product id of the postcodes before index i, null if too big
+    private final int[] entryStart;             // cart entries of postcode row i are at entryStart[i] until entryStart[i + 1], only without unitsBefore
+    private final int[] entryProductIds;        // ids of the ProductCatalog
+    private final int[] entryQuantities;
+    private final int products;
+    private final ProductCatalog catalog;
+
+    ZipCodeIndex(Collection<Customer> customers, ProductCatalog catalog) {
+        this.catalog = catalog;
+        Map<Integer, Integer> rows = new HashMap<>();
+        for (Customer customer : customers) {
+            int code = ZipCodeDictionary.encode(customer.getZipCode());
+            if (code >= 0) {
+                rows.putIfAbsent(code, 0);
+            }
+            for (int i = 0; i < customer.getCartSize(); i++) {
+                catalog.register(customer.getCartProduct(i)); // A product can be put in a cart after its customer was added.
+            }
+        }
+        codes = new int[rows.size()];
+        int index = 0;
+        for (int code : rows.keySet()) {
+            codes[index++] = code;
+        }
+        Arrays.sort(codes);
+        for (int row = 0; row < codes.length; row++) {
+            rows.put(codes[row], row);
+        }
+
+        products = catalog.size();
+        boolean dense = (long) (codes.length + 1) * products <= MAX_PRODUCT_CELLS; // Checked before anything of that size is allocated.
+        revenueBefore = new long[codes.length + 1];
+        customersBefore = new int[codes.length + 1];
+        unitsBefore = dense ? new int[(codes.length + 1) * products] : null;
+        entryStart = dense ? null : new int[codes.length + 1];
+        for (Customer customer : customers) {
+            Integer row = rows.get(ZipCodeDictionary.encode(customer.getZipCode()));
+            if (row == null) {
+                continue;
+            }
+            revenueBefore[row + 1] += customer.calculateTotalBillInCents(); // Totals per row first, prefix sums below.
+            customersBefore[row + 1]++;
+            if (dense) {
+                for (int i = 0; i < customer.getCartSize(); i++) {
+                    unitsBefore[(row + 1) * products + catalog.getId(customer.getCartProduct(i))] += customer.getCartQuantity(i);
+                }
+            } else {
+                entryStart[row + 1] += customer.getCartSize();
+            }
+        }
+        for (int row = 0; row < codes.length; row++) {
+            revenueBefore[row + 1] += revenueBefore[row];
+            customersBefore[row + 1] += customersBefore[row];
+            if (dense) {
+                for (int id = 0; id < products; id++) {
+                    unitsBefore[(row + 1) * products + id] += unitsBefore[row * products + id];
+                }
+            } else {
+                entryStart[row + 1] += entryStart[row];
+            }
+        }
+
+        if (dense) {
+            entryProductIds = null;
+            entryQuantities = null;
+        } else { // Compressed rows, like the carts of CustomerColumns: only the entries that exist take memory.
+            entryProductIds = new int[entryStart[codes.length]];
+            entryQuantities = new int[entryStart[codes.length]];
+            int[] next = Arrays.copyOf(entryStart, codes.length);
+            for (Customer customer : customers) {
+                Integer row = rows.get(ZipCodeDictionary.encode(customer.getZipCode()));
+                if (row == null) {
+                    continue;
+                }
+                for (int i = 0; i < customer.getCartSize(); i++) {
+                    entryProductIds[next[row]] = catalog.getId(customer.getCartProduct(i));
+                    entryQuantities[next[row]++] = customer.getCartQuantity(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of different postcodes
+     */
+    public int size() {
+        return codes.length;
+    }
+
+    public double getRevenue(String prefix) {
+        return Money.toEuros(getRevenueInCents(prefix));
+    }
+
+    /**
+     * @return revenue in cents of the customers with a postcode that starts with the prefix, like "1017" or "10"
+     */
+    public long getRevenueInCents(String prefix) {
+        return getRevenueInCents(prefix, prefix);
+    }
+
+    public double getRevenue(String fromPrefix, String toPrefix) {
+        return Money.toEuros(getRevenueInCents(fromPrefix, toPrefix));
+    }
+
+    /**
+     * @return revenue in cents of the customers with a postcode from the first prefix up to and including the last prefix,
+     * so "1000" until "1099" covers 1000AA until 1099ZZ
+     */
+    public long getRevenueInCents(String fromPrefix, String toPrefix) {
+        int[] rows = rows(fromPrefix, toPrefix);
+        return revenueBefore[rows[1]] - revenueBefore[rows[0]];
+    }
+
+    public int getNumberOfCustomers(String prefix) {
+        return getNumberOfCustomers(prefix, prefix);
+    }
+
+    public int getNumberOfCustomers(String fromPrefix, String toPrefix) {
+        int[] rows = rows(fromPrefix, toPrefix);
+        return customersBefore[rows[1]] - customersBefore[rows[0]];
+    }
+
+    public Map<Product, Integer> getNumberOfProductsBought(String prefix) {
+        return getNumberOfProductsBought(prefix, prefix);
+    }
+
+    /**
+     * @return units bought per product by the customers of the postcode range, only products that were bought
+     */
+    public Map<Product, Integer> getNumberOfProductsBought(String fromPrefix, String toPrefix) {
+        int[] rows = rows(fromPrefix, toPrefix);
+        int[] bought = new int[products];
+        if (unitsBefore != null) {
+            for (int id = 0; id < products; id++) {
+                bought[id] = unitsBefore[rows[1] * products + id] - unitsBefore[rows[0] * products + id];
+            }
+        } else {
+            for (int entry = entryStart[rows[0]]; entry < entryStart[rows[1]]; entry++) { // The rows of a range are next to each other.
+                bought[entryProductIds[entry]] += entryQuantities[entry];
+            }
+        }
+        Map<Product, Integer> productsBought = new HashMap<>();
+        for (int id = 0; id < products; id++) {
+            if (bought[id] > 0) {
+                productsBought.put(catalog.getProduct(id), bought[id]);
+            }
+        }
+        return productsBought;
+    }
+
+    /**
+     * @return first row and the row after the last row of the postcodes in the range
+     */
+    private int[] rows(String fromPrefix, String toPrefix) {
+        int start = ZipCodeDictionary.prefixRange(fromPrefix)[0];
+        int end = ZipCodeDictionary.prefixRange(toPrefix)[1];
+        int first = firstRowAtLeast(start);
+        return new int[] {first, Math.max(first, firstRowAtLeast(end))};
+    }
+
+    private int firstRowAtLeast(int code) {
+        int row = Arrays.binarySearch(codes, code);
+        return row >= 0 ? row : -row - 1;
+    }
+}
@@ -1,6 +1,8 @@
 module Supermarket {
   requires gson;
   requires java.sql;
+  requires java.management;
+  requires jdk.management;
 
   exports model to gson;
   opens model to gson;
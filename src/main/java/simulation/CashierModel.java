@@ -0,0 +1,69 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package simulation;
+
+/**
+ * Check-out speed of a type of cashier: a fixed time per customer (greeting, paying) plus a fixed scan time per item.
+ * An express cashier only takes customers with at most maxItems items.
+ */
+public final class CashierModel {
+    public static final int NO_ITEM_LIMIT = Integer.MAX_VALUE;
+
+    private final String name;
+    private final double secondsPerItem;
+    private final double secondsPerCustomer;
+    private final int maxItems;
+
+    public CashierModel(String name, double secondsPerItem, double secondsPerCustomer) {
+        this(name, secondsPerItem, secondsPerCustomer, NO_ITEM_LIMIT);
+    }
+
+    public CashierModel(String name, double secondsPerItem, double secondsPerCustomer, int maxItems) {
+        if (secondsPerItem < 0.0 || secondsPerCustomer < 0.0) {
+            throw new IllegalArgumentException("Check-out times can't be negative: " + secondsPerItem + ", " + secondsPerCustomer);
+        }
+        if (maxItems < 1) {
+            throw new IllegalArgumentException("Maximum number of items should be at least 1: " + maxItems);
+        }
+        this.name = name;
+        this.secondsPerItem = secondsPerItem;
+        this.secondsPerCustomer = secondsPerCustomer;
+        this.maxItems = maxItems;
+    }
+
+    public boolean accepts(int items) {
+        return items <= maxItems;
+    }
+
+    /**
+     * @return check-out time in whole seconds of a customer with the number of items
+     */
+    public int checkOutTime(int items) {
+        return (int) Math.round(secondsPerCustomer + secondsPerItem * items);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getSecondsPerItem() {
+        return secondsPerItem;
+    }
+
+    public double getSecondsPerCustomer() {
+        return secondsPerCustomer;
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package simulation;
+
+import model.Customer;
+import model.Supermarket;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Discrete-event simulation of the check-out. Customers arrive in queuedAt order and join the cashier that can start
+ * with them first, among the cashiers that accept their number of items. Every cashier handles its queue in order.
+ * The free time of the cashiers of each model and the start times of the waiting customers are kept in
+ * primitive binary heaps, so a customer costs O(models + log cashiers + log queue) and nothing is allocated per customer.
+ */
+public class CheckoutSimulation {
+    private final List<CashierModel> models = new ArrayList<>();
+    private final List<Integer> numberOfCashiers = new ArrayList<>();
+    private int windowStart = 0;                    // only customers that arrive in the window are counted in the result,
+    private int windowEnd = Integer.MAX_VALUE;      // as second of day, but all customers are simulated
+
+    /**
+     * adds cashiers of a model, customers prefer cashiers of models that were added earlier when they can start
+     * and finish at the same time
+     * @return this simulation
+     */
+    public CheckoutSimulation addCashiers(CashierModel model, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Number of cashiers should be at least 1: " + count);
+        }
+        models.add(model);
+        numberOfCashiers.add(count);
+        return this;
+    }
+
+    /**
+     * limits the result to the customers that arrive from (inclusive) until to (exclusive). Customers outside the window
+     * are still simulated, so the queues at the start of the window are realistic. Utilisation is measured within the window.
+     * @return this simulation
+     */
+    public CheckoutSimulation setEvaluationWindow(LocalTime from, LocalTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Evaluation window should end after it starts: " + from + " - " + to);
+        }
+        windowStart = from.toSecondOfDay();
+        windowEnd = to.toSecondOfDay();
+        return this;
+    }
+
+    public List<CashierModel> getModels() {
+        return Collections.unmodifiableList(models);
+    }
+
+    public int getNumberOfCashiers(int model) {
+        return numberOfCashiers.get(model);
+    }
+
+    /**
+     * simulates the check-out of all customers of the supermarket and fills their actual waiting and check-out times
+     * @return summary of the simulation
+     */
+    public SimulationResult simulate(Supermarket supermarket) {
+        CheckoutWorkload workload = new CheckoutWorkload(supermarket);
+        int[] waits = new int[workload.size()];
+        int[] checkOutTimes = new int[workload.size()];
+        SimulationResult result = run(workload, waits, checkOutTimes);
+        for (int i = 0; i < workload.size(); i++) {
+            Customer customer = workload.getCustomer(i);
+            customer.setActualWaitingTime(waits[i]);
+            customer.setActualCheckOutTime(checkOutTimes[i]);
+        }
+        return result;
+    }
+
+    /**
+     * simulates the workload without changing the customers, safe to call from several threads
+     * @return summary of the simulation
+     */
+    public SimulationResult run(CheckoutWorkload workload) {
+        return run(workload, null, null);
+    }
+
+    /**
+     * runs the event loop, the wait and check-out time of customer i go to waits[i] and checkOutTimes[i] when they aren't null
+     */
+    SimulationResult run(CheckoutWorkload workload, int[] waits, int[] checkOutTimes) {
+        int modelCount = models.size();
+        if (modelCount == 0) {
+            throw new IllegalStateException("Add cashiers before running the simulation");
+        }
+        CashierModel[] cashierModels = models.toArray(new CashierModel[0]);
+        IntHeap[] freeAt = new IntHeap[modelCount];          // free time of every cashier, per model
+        long[] busySeconds = new long[modelCount];
+        for (int model = 0; model < modelCount; model++) {
+            freeAt[model] = new IntHeap(numberOfCashiers.get(model));
+            for (int cashier = 0; cashier < numberOfCashiers.get(model); cashier++) {
+                freeAt[model].push(Integer.MIN_VALUE);
+            }
+        }
+        IntHeap waiting = new IntHeap(16);                   // start times of customers that are still waiting
+        WaitHistogram histogram = new WaitHistogram();
+        long queueLengths = 0;
+        int maxQueueLength = 0;
+        int counted = 0;
+        int firstArrival = Integer.MAX_VALUE;
+        int lastCheckOut = Integer.MIN_VALUE;
+
+        for (int i = 0; i < workload.size(); i++) {
+            int arrival = workload.getArrivalSecond(i);
+            int items = workload.getItems(i);
+            int chosen = -1;
+            int start = 0;
+            int finish = 0;
+            for (int model = 0; model < modelCount; model++) {
+                if (cashierModels[model].accepts(items)) {
+                    int modelStart = Math.max(arrival, freeAt[model].peek());
+                    int modelFinish = modelStart + cashierModels[model].checkOutTime(items);
+                    if (chosen < 0 || modelStart < start || (modelStart == start && modelFinish < finish)) {
+                        chosen = model;
+                        start = modelStart;
+                        finish = modelFinish;
+                    }
+                }
+            }
+            if (chosen < 0) {
+                throw new IllegalStateException("No cashier accepts a customer with " + items + " items");
+            }
+            freeAt[chosen].replaceTop(finish);
+            busySeconds[chosen] += Math.max(0, Math.min(finish, windowEnd) - Math.max(start, windowStart)); // Only the busy time inside the window.
+
+            while (waiting.size() > 0 && waiting.peek() <= arrival) { // These customers are at a cashier by now.
+                waiting.pop();
+            }
+            if (arrival >= windowStart && arrival < windowEnd) {
+                queueLengths += waiting.size();
+                maxQueueLength = Math.max(maxQueueLength, waiting.size());
+                histogram.add(start - arrival);
+                counted++;
+                firstArrival = Math.min(firstArrival, arrival);
+                lastCheckOut = Math.max(lastCheckOut, finish);
+            }
+            if (start > arrival) {
+                waiting.push(start);
+            }
+            if (waits != null) {
+                waits[i] = start - arrival;
+                checkOutTimes[i] = finish - start;
+            }
+        }
+
+        long openSeconds = 0;   // time the cashiers are measured, the window or from the first arrival until the last check-out
+        if (counted > 0) {
+            openSeconds = windowEnd == Integer.MAX_VALUE ? lastCheckOut - firstArrival : windowEnd - windowStart;
+        }
+        double[] utilisationPerModel = new double[modelCount];
+        long totalBusy = 0;
+        long totalCashiers = 0;
+        for (int model = 0; model < modelCount; model++) {
+            utilisationPerModel[model] = openSeconds == 0 ? 0.0 : (double) busySeconds[model] / (openSeconds * numberOfCashiers.get(model));
+            totalBusy += busySeconds[model];
+            totalCashiers += numberOfCashiers.get(model);
+        }
+        return new SimulationResult(histogram, counted == 0 ? 0.0 : (double) queueLengths / counted,
+                maxQueueLength, openSeconds == 0 ? 0.0 : (double) totalBusy / (openSeconds * totalCashiers),
+                utilisationPerModel, counted == 0 ? 0 : lastCheckOut);
+    }
+
+    /**
+     * @return the cashiers of the simulation, for example "2x express, 5x regular"
+     */
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder();
+        for (int model = 0; model < models.size(); model++) {
+            description.append(model == 0 ? "" : ", ").append(numberOfCashiers.get(model)).append("x ").append(models.get(model));
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package simulation;
+
+import model.Customer;
+import model.Supermarket;
+
+import java.util.Collection;
+
+/**
+ * Read-only input of a check-out simulation: arrival second and number of items of every customer, in arrival order.
+ * Nothing changes after construction, so one workload can be shared by simulations on any number of threads.
+ */
+public final class CheckoutWorkload {
+    private final Customer[] customers;
+    private final int[] arrivalSeconds;     // queuedAt as second of day, ascending
+    private final int[] items;              // number of items in the cart
+
+    /**
+     * @param customers customers ordered by queuedAt, like the customers of a Supermarket
+     */
+    public CheckoutWorkload(Collection<Customer> customers) {
+        this.customers = customers.toArray(new Customer[0]);
+        arrivalSeconds = new int[this.customers.length];
+        items = new int[this.customers.length];
+        for (int i = 0; i < this.customers.length; i++) {
+            arrivalSeconds[i] = this.customers[i].getQueuedAt().toSecondOfDay();
+            items[i] = this.customers[i].getNumberOfItems();
+            if (i > 0 && arrivalSeconds[i] < arrivalSeconds[i - 1]) {
+                throw new IllegalArgumentException("Customers should be ordered by queuedAt: " + this.customers[i].getQueuedAt());
+            }
+        }
+    }
+
+    public CheckoutWorkload(Supermarket supermarket) {
+        this(supermarket.getCustomers());
+    }
+
+    public int size() {
+        return customers.length;
+    }
+
+    public int getArrivalSecond(int index) {
+        return arrivalSeconds[index];
+    }
+
+    public int getItems(int index) {
+        return items[index];
+    }
+
+    Customer getCustomer(int index) {
+        return customers[index];
+    }
+}
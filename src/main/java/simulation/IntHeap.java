@@ -0,0 +1,78 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package simulation;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of int values in a plain array, a PriorityQueue without boxing.
+ */
+final class IntHeap {
+    private int[] values;
+    private int size;
+
+    IntHeap(int capacity) {
+        values = new int[Math.max(1, capacity)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int peek() {
+        return values[0];
+    }
+
+    void push(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        int index = size++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (values[parent] <= value) {
+                break;
+            }
+            values[index] = values[parent];
+            index = parent;
+        }
+        values[index] = value;
+    }
+
+    int pop() {
+        int top = values[0];
+        size--;
+        if (size > 0) {
+            siftDown(values[size]);
+        }
+        return top;
+    }
+
+    /**
+     * replaces the smallest value, cheaper than a pop followed by a push
+     */
+    void replaceTop(int value) {
+        siftDown(value);
+    }
+
+    private void siftDown(int value) {
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && values[child + 1] < values[child]) {
+                child++;
+            }
+            if (value <= values[child]) {
+                break;
+            }
+            values[index] = values[child];
+            index = child;
+        }
+        values[index] = value;
+    }
+}
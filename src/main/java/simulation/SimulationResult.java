@@ -0,0 +1,99 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package simulation;
+
+import java.util.Arrays;
+
+/**
+ * Summary of one check-out simulation. Only fixed-size numbers are kept, so results are small
+ * no matter how many customers were simulated.
+ */
+public final class SimulationResult {
+    private final long numberOfCustomers;
+    private final double averageWait;
+    private final int medianWait;
+    private final int p90Wait;
+    private final int p95Wait;
+    private final int p99Wait;
+    private final int maxWait;
+    private final double averageQueueLength;   // customers waiting when a customer arrives, over all cashiers
+    private final int maxQueueLength;
+    private final double utilisation;          // busy time of all cashiers divided by their available time
+    private final double[] utilisationPerModel; // in the order the cashier models were added
+    private final int lastCheckOutSecond;      // second of day the last customer is done, can be past midnight
+
+    SimulationResult(WaitHistogram waits, double averageQueueLength, int maxQueueLength, double utilisation,
+                     double[] utilisationPerModel, int lastCheckOutSecond) {
+        numberOfCustomers = waits.getCount();
+        averageWait = waits.getAverage();
+        medianWait = waits.getPercentile(50.0);
+        p90Wait = waits.getPercentile(90.0);
+        p95Wait = waits.getPercentile(95.0);
+        p99Wait = waits.getPercentile(99.0);
+        maxWait = waits.getMax();
+        this.averageQueueLength = averageQueueLength;
+        this.maxQueueLength = maxQueueLength;
+        this.utilisation = utilisation;
+        this.utilisationPerModel = utilisationPerModel.clone();
+        this.lastCheckOutSecond = lastCheckOutSecond;
+    }
+
+    public long getNumberOfCustomers() {
+        return numberOfCustomers;
+    }
+
+    public double getAverageWait() {
+        return averageWait;
+    }
+
+    public int getMedianWait() {
+        return medianWait;
+    }
+
+    public int getP90Wait() {
+        return p90Wait;
+    }
+
+    public int getP95Wait() {
+        return p95Wait;
+    }
+
+    public int getP99Wait() {
+        return p99Wait;
+    }
+
+    public int getMaxWait() {
+        return maxWait;
+    }
+
+    public double getAverageQueueLength() {
+        return averageQueueLength;
+    }
+
+    public int getMaxQueueLength() {
+        return maxQueueLength;
+    }
+
+    public double getUtilisation() {
+        return utilisation;
+    }
+
+    public double getUtilisation(int model) {
+        return utilisationPerModel[model];
+    }
+
+    public int getLastCheckOutSecond() {
+        return lastCheckOutSecond;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("customers: %d, wait avg %.1fs p50 %ds p90 %ds p95 %ds p99 %ds max %ds, queue avg %.1f max %d, utilisation %.1f%% %s",
+                numberOfCustomers, averageWait, medianWait, p90Wait, p95Wait, p99Wait, maxWait,
+                averageQueueLength, maxQueueLength, utilisation * 100.0, Arrays.toString(utilisationPerModel));
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Runs many check-out simulations against the same customers, in parallel. All simulations read one shared
+ * CheckoutWorkload, and a finished simulation only keeps its fixed-size SimulationResult, so memory
+ * depends on the number of threads and not on the number of scenarios.
+ */
+public class StaffingSweep {
+    private final CheckoutWorkload workload;
+    private final ForkJoinPool pool;
+
+    public StaffingSweep(CheckoutWorkload workload) {
+        this(workload, ForkJoinPool.commonPool());
+    }
+
+    public StaffingSweep(CheckoutWorkload workload, ForkJoinPool pool) {
+        this.workload = workload;
+        this.pool = pool;
+    }
+
+    /**
+     * runs every scenario once on the pool
+     * @return table with a row per scenario, in the order of the scenarios
+     */
+    public SweepTable run(List<CheckoutSimulation> scenarios) {
+        List<SimulationResult> results = pool.submit(() -> IntStream.range(0, scenarios.size()).parallel()
+                .mapToObj(index -> scenarios.get(index).run(workload))
+                .collect(Collectors.toList())).join();
+        List<String> names = new ArrayList<>();
+        for (CheckoutSimulation scenario : scenarios) {
+            names.add(scenario.toString());
+        }
+        return new SweepTable(names, results);
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Comparison of the results of a staffing sweep, one row per scenario.
+ */
+public final class SweepTable {
+    private final List<String> scenarios;
+    private final List<SimulationResult> results;
+
+    SweepTable(List<String> scenarios, List<SimulationResult> results) {
+        this.scenarios = Collections.unmodifiableList(new ArrayList<>(scenarios));
+        this.results = Collections.unmodifiableList(new ArrayList<>(results));
+    }
+
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * @return description of the cashiers of a scenario
+     */
+    public String getScenario(int row) {
+        return scenarios.get(row);
+    }
+
+    public SimulationResult getResult(int row) {
+        return results.get(row);
+    }
+
+    /**
+     * finds the first scenario that meets the goal, with the scenarios ordered from cheap to expensive
+     * that is the cheapest staffing that works, for example {@code result -> result.getP95Wait() <= 120}
+     * @return row of the first scenario meeting the goal, -1 if none does
+     */
+    public int findFirst(Predicate<SimulationResult> goal) {
+        for (int row = 0; row < results.size(); row++) {
+            if (goal.test(results.get(row))) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        int width = "Scenario".length();
+        for (String scenario : scenarios) {
+            width = Math.max(width, scenario.length());
+        }
+        StringBuilder table = new StringBuilder();
+        String format = "%-" + width + "s %10s %8s %8s %8s %8s %10s %9s %12s%n";
+        table.append(String.format(format, "Scenario", "avg wait", "p50", "p90", "p95", "p99", "avg queue", "max queue", "utilisation"));
+        for (int row = 0; row < results.size(); row++) {
+            SimulationResult result = results.get(row);
+            table.append(String.format("%-" + width + "s %9.1fs %7ds %7ds %7ds %7ds %10.1f %9d %11.1f%%%n", scenarios.get(row),
+                    result.getAverageWait(), result.getMedianWait(), result.getP90Wait(), result.getP95Wait(), result.getP99Wait(),
+                    result.getAverageQueueLength(), result.getMaxQueueLength(), result.getUtilisation() * 100.0));
+        }
+        return table.toString();
+    }
+}
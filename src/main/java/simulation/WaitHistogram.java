@@ -0,0 +1,60 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package simulation;
+
+import java.util.Arrays;
+
+/**
+ * Counts waiting times per whole second. Its size depends on the longest wait, not on the number of customers.
+ */
+final class WaitHistogram {
+    private int[] counts = new int[64];     // counts[w] is the number of customers that waited w seconds
+    private long count;
+    private long total;
+    private int max;
+
+    void add(int wait) {
+        if (wait >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(wait + 1, counts.length * 2));
+        }
+        counts[wait]++;
+        count++;
+        total += wait;
+        max = Math.max(max, wait);
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    double getAverage() {
+        return count == 0 ? 0.0 : (double) total / count;
+    }
+
+    int getMax() {
+        return max;
+    }
+
+    /**
+     * finds the wait at a percentile with the nearest-rank method, like the bill percentiles
+     * @return wait in seconds, 0 without customers
+     */
+    int getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int wait = 0; wait <= max; wait++) {
+            seen += counts[wait];
+            if (seen >= rank) {
+                return wait;
+            }
+        }
+        return max;
+    }
+}
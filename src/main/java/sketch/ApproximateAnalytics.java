@@ -0,0 +1,175 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package sketch;
+
+import model.Customer;
+import model.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Approximate product and zip code analytics in fixed memory, for chains with many stores and zip codes.
+ * Units per zip code and product go into one Count-Min sketch, customers per product into a Space-Saving top-k
+ * and the zip codes of every product into a HyperLogLog. Nothing grows with the number of zip codes or customers,
+ * only with the number of products. Analytics of several stores can be merged when they use the same error bounds.
+ */
+public class ApproximateAnalytics {
+    private final double epsilon;
+    private final double delta;
+    private final int topK;
+    private final int precision;
+    private final Map<String, Product> products = new HashMap<>();        // first product per code
+    private final CountMinSketch unitsByZipcode;                          // key is zip code + '|' + product code
+    private final SpaceSaving<String> customersPerProduct;                // by product code
+    private final Map<String, HyperLogLog> zipcodesPerProduct = new HashMap<>();
+    private final HyperLogLog zipcodes;
+    private final StringBuilder key = new StringBuilder();               // reused for the Count-Min keys
+    private long numberOfCustomers;
+
+    /**
+     * uses units within 0.1% of all units with 99% certainty, the top 64 products and 2% error on distinct zip codes
+     */
+    public ApproximateAnalytics() {
+        this(0.001, 0.01, 64, 0.02);
+    }
+
+    /**
+     * @param epsilon         units per zip code and product are at most epsilon times all units too high ...
+     * @param delta           ... except with probability delta
+     * @param topK            number of products of which the customers are counted, more than the number of products is exact
+     * @param distinctError   standard error of the number of distinct zip codes, for example 0.02
+     */
+    public ApproximateAnalytics(double epsilon, double delta, int topK, double distinctError) {
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.topK = topK;
+        this.precision = HyperLogLog.precisionFor(distinctError);
+        unitsByZipcode = new CountMinSketch(epsilon, delta);
+        customersPerProduct = new SpaceSaving<>(topK);
+        zipcodes = new HyperLogLog(precision);
+    }
+
+    public void add(Customer customer) {
+        numberOfCustomers++;
+        String zipCode = customer.getZipCode();
+        zipcodes.add(zipCode);
+        for (int i = 0; i < customer.getCartSize(); i++) {
+            Product product = customer.getCartProduct(i);
+            products.putIfAbsent(product.getCode(), product);
+            unitsByZipcode.add(key(zipCode, product), customer.getCartQuantity(i));
+            customersPerProduct.add(product.getCode(), 1);
+            zipcodesPerProduct.computeIfAbsent(product.getCode(), code -> new HyperLogLog(precision)).add(zipCode);
+        }
+    }
+
+    public void addAll(Collection<Customer> customers) {
+        for (Customer customer : customers) {
+            add(customer);
+        }
+    }
+
+    private CharSequence key(String zipCode, Product product) {
+        key.setLength(0);
+        return key.append(zipCode).append('|').append(product.getCode());
+    }
+
+    /**
+     * adds the analytics of another store with the same error bounds
+     * @return these analytics
+     */
+    public ApproximateAnalytics merge(ApproximateAnalytics other) {
+        if (other.epsilon != epsilon || other.delta != delta || other.topK != topK || other.precision != precision) {
+            throw new IllegalArgumentException("Only analytics with the same error bounds can be merged");
+        }
+        other.products.forEach(products::putIfAbsent);
+        unitsByZipcode.merge(other.unitsByZipcode);
+        customersPerProduct.merge(other.customersPerProduct);
+        other.zipcodesPerProduct.forEach((code, sketch) ->
+                zipcodesPerProduct.computeIfAbsent(code, k -> new HyperLogLog(precision)).merge(sketch));
+        zipcodes.merge(other.zipcodes);
+        numberOfCustomers += other.numberOfCustomers;
+        return this;
+    }
+
+    /**
+     * @return the product(s) with the highest estimated number of customers
+     */
+    public Set<Product> findMostPopularProducts() {
+        Set<Product> mostPopular = new HashSet<>();
+        long highest = 0;
+        for (String code : customersPerProduct.top(topK)) {
+            long count = customersPerProduct.estimate(code);
+            if (count < highest) {
+                break;
+            }
+            highest = count;
+            mostPopular.add(products.get(code));
+        }
+        return mostPopular;
+    }
+
+    /**
+     * @return at most number products with the highest estimated number of customers, highest first
+     */
+    public List<Product> findTopProducts(int number) {
+        List<Product> top = new ArrayList<>();
+        for (String code : customersPerProduct.top(number)) {
+            top.add(products.get(code));
+        }
+        return top;
+    }
+
+    public long estimateNumberOfCustomers(Product product) {
+        return customersPerProduct.estimate(product.getCode());
+    }
+
+    public long estimateUnits(String zipCode, Product product) {
+        return unitsByZipcode.estimate(key(zipCode, product));
+    }
+
+    /**
+     * finds the product with the highest estimated units in the zip code, the lowest code on equal estimates
+     * @return most bought product or null if nothing is counted for the zip code
+     */
+    public Product estimateMostBoughtProduct(String zipCode) {
+        Product mostBought = null;
+        long highest = 0;
+        for (Product product : products.values()) {
+            long units = estimateUnits(zipCode, product);
+            if (units > highest || (units == highest && units > 0 && product.compareTo(mostBought) < 0)) {
+                mostBought = product;
+                highest = units;
+            }
+        }
+        return mostBought;
+    }
+
+    /**
+     * @return estimated number of distinct zip codes where the product was bought
+     */
+    public long estimateNumberOfZipcodes(Product product) {
+        HyperLogLog sketch = zipcodesPerProduct.get(product.getCode());
+        return sketch == null ? 0 : sketch.estimate();
+    }
+
+    /**
+     * @return estimated number of distinct zip codes of all customers
+     */
+    public long estimateNumberOfZipcodes() {
+        return zipcodes.estimate();
+    }
+
+    public long getNumberOfCustomers() {
+        return numberOfCustomers;
+    }
+}
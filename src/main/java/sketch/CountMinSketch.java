@@ -0,0 +1,82 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package sketch;
+
+/**
+ * Count-Min sketch: estimated counts of any number of keys in a fixed table. An estimate is never too low, and
+ * with probability 1 - delta it is at most epsilon times the total count too high.
+ * Sketches with the same epsilon and delta can be merged, for example the sketches of several stores.
+ */
+public final class CountMinSketch {
+    private final int width;
+    private final int depth;
+    private final long[] table;     // depth rows of width counters
+    private long totalCount;
+
+    public CountMinSketch(double epsilon, double delta) {
+        if (epsilon <= 0.0 || epsilon >= 1.0 || delta <= 0.0 || delta >= 1.0) {
+            throw new IllegalArgumentException("Epsilon and delta should be between 0 and 1: " + epsilon + ", " + delta);
+        }
+        width = (int) Math.ceil(Math.E / epsilon);
+        depth = (int) Math.ceil(Math.log(1.0 / delta));
+        table = new long[width * depth];
+    }
+
+    public void add(CharSequence key, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count can't be negative: " + count);
+        }
+        long hash = Hashing.hash64(key);
+        for (int row = 0; row < depth; row++) {
+            table[row * width + column(hash, row)] += count;
+        }
+        totalCount += count;
+    }
+
+    /**
+     * @return estimated count of the key, at least the real count
+     */
+    public long estimate(CharSequence key) {
+        long hash = Hashing.hash64(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, table[row * width + column(hash, row)]);
+        }
+        return estimate;
+    }
+
+    private int column(long hash, int row) {
+        int combined = (int) hash + row * (int) (hash >>> 32); // Row hashes from one 64-bit hash (Kirsch-Mitzenmacher).
+        return (combined & Integer.MAX_VALUE) % width;
+    }
+
+    /**
+     * adds the counts of another sketch with the same dimensions to this one
+     * @return this sketch
+     */
+    public CountMinSketch merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Only sketches with the same epsilon and delta can be merged");
+        }
+        for (int i = 0; i < table.length; i++) {
+            table[i] += other.table[i];
+        }
+        totalCount += other.totalCount;
+        return this;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return memory of the counters in bytes
+     */
+    public long getSizeInBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package sketch;
+
+/**
+ * 64-bit hash for the sketches. String.hashCode has only 32 bits and poor low bits, too weak for HyperLogLog.
+ */
+final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * FNV-1a over the characters followed by the MurmurHash3 finalizer
+     */
+    static long hash64(CharSequence key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
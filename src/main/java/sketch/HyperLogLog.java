@@ -0,0 +1,92 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package sketch;
+
+/**
+ * HyperLogLog: estimated number of distinct keys in 2^precision bytes. The standard error is 1.04 / sqrt(2^precision),
+ * about 1.6% with the default precision of 12 (4 KB). Sketches with the same precision can be merged.
+ */
+public final class HyperLogLog {
+    public static final int DEFAULT_PRECISION = 12;
+
+    private final int precision;
+    private final byte[] registers;     // highest rank seen per register
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Precision should be between 4 and 18: " + precision);
+        }
+        this.precision = precision;
+        registers = new byte[1 << precision];
+    }
+
+    /**
+     * @return the smallest precision with at most this standard error, for example 0.02 for 2%
+     */
+    public static int precisionFor(double standardError) {
+        if (standardError <= 0.0 || standardError >= 1.0) {
+            throw new IllegalArgumentException("Standard error should be between 0 and 1: " + standardError);
+        }
+        int precision = 4;
+        while (precision < 18 && 1.04 / Math.sqrt(1 << precision) > standardError) {
+            precision++;
+        }
+        return precision;
+    }
+
+    public void add(CharSequence key) {
+        long hash = Hashing.hash64(key);
+        int register = (int) (hash >>> (64 - precision));
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+
+    /**
+     * @return estimated number of distinct keys that were added
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0.0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = m == 16 ? 0.673 : m == 32 ? 0.697 : m == 64 ? 0.709 : 0.7213 / (1.0 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) { // Few keys, linear counting is more precise.
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * adds the keys of another sketch with the same precision to this one
+     * @return this sketch
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Only sketches with the same precision can be merged");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+        return this;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package sketch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving top-k: counts at most capacity keys. A new key replaces the key with the lowest count and takes over that
+ * count as its possible error, so counts are never too low and at most total / capacity too high. Every key with a real
+ * count above total / capacity is kept. Summaries can be merged, the result keeps the capacity of this summary.
+ */
+public final class SpaceSaving<K> {
+    private final int capacity;
+    private final Map<K, long[]> counters;  // per key {count, error}
+    private long totalCount;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity should be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+        counters = new HashMap<>(capacity * 2);
+    }
+
+    public void add(K key, long count) {
+        totalCount += count;
+        long[] counter = counters.get(key);
+        if (counter != null) {
+            counter[0] += count;
+        } else if (counters.size() < capacity) {
+            counters.put(key, new long[]{count, 0});
+        } else {
+            K smallest = findSmallest();
+            long[] replaced = counters.remove(smallest);
+            counters.put(key, new long[]{replaced[0] + count, replaced[0]});
+        }
+    }
+
+    private K findSmallest() {
+        K smallest = null;
+        long smallestCount = Long.MAX_VALUE;
+        for (Map.Entry<K, long[]> entry : counters.entrySet()) { // The capacity is small, so a scan is cheap enough.
+            if (entry.getValue()[0] < smallestCount) {
+                smallest = entry.getKey();
+                smallestCount = entry.getValue()[0];
+            }
+        }
+        return smallest;
+    }
+
+    /**
+     * @return estimated count, at least the real count for kept keys, 0 for keys that aren't kept
+     */
+    public long estimate(K key) {
+        long[] counter = counters.get(key);
+        return counter == null ? 0 : counter[0];
+    }
+
+    /**
+     * @return the most that the estimate of the key can be too high
+     */
+    public long getError(K key) {
+        long[] counter = counters.get(key);
+        return counter == null ? 0 : counter[1];
+    }
+
+    /**
+     * @return at most number keys with the highest estimated counts, highest first
+     */
+    public List<K> top(int number) {
+        List<K> keys = new ArrayList<>(counters.keySet());
+        keys.sort(Comparator.comparingLong((K key) -> counters.get(key)[0]).reversed());
+        return keys.subList(0, Math.min(number, keys.size()));
+    }
+
+    /**
+     * adds the counts of another summary. A key that is missing in a full summary can have had up to its lowest count,
+     * so that count is added as possible error.
+     * @return this summary
+     */
+    public SpaceSaving<K> merge(SpaceSaving<K> other) {
+        long missingHere = counters.size() < capacity ? 0 : estimate(findSmallest());
+        long missingThere = other.counters.size() < other.capacity ? 0 : other.estimate(other.findSmallest());
+        Map<K, long[]> merged = new HashMap<>();
+        counters.forEach((key, counter) -> merged.put(key, new long[]{counter[0] + missingThere, counter[1] + missingThere}));
+        other.counters.forEach((key, counter) -> {
+            long[] here = merged.get(key);
+            if (here == null) {
+                merged.put(key, new long[]{counter[0] + missingHere, counter[1] + missingHere});
+            } else {
+                here[0] += counter[0] - missingThere;
+                here[1] += counter[1] - missingThere;
+            }
+        });
+        List<Map.Entry<K, long[]>> entries = new ArrayList<>(merged.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<K, long[]> entry) -> entry.getValue()[0]).reversed());
+        counters.clear();
+        for (Map.Entry<K, long[]> entry : entries.subList(0, Math.min(capacity, entries.size()))) {
+            counters.put(entry.getKey(), entry.getValue());
+        }
+        totalCount += other.totalCount;
+        return this;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,684 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package utilities;
+
+import com.google.gson.stream.JsonReader;
+import model.Customer;
+import model.Money;
+import model.Product;
+import model.Supermarket;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Supermarket file that is indexed instead of loaded. Opening maps the customers section in memory and only keeps the
+ * position of every customer line, in queuedAt order. Queries decode just the fields they need (queuedAt, zipCode and
+ * the codes and amounts of the cart) straight from the mapped bytes, without building Customer or Product objects.
+ * Prices come from the products of the header. Opening decodes every line once in file order, so a cart product that
+ * isn't in the Products section gets the price of its first line in the file, like the loaders do.
+ * A Customer is only built when a query returns one. Not thread-safe, the queries share scratch fields.
+ */
+public class LazySupermarket {
+    private static final long REGION_SIZE = 1L << 30;  // one mapping stays well below the 2GB limit
+    private static final byte[] QUEUED_AT = bytes("queuedAt");
+    private static final byte[] ZIP_CODE = bytes("zipCode");
+    private static final byte[] ITEMS_CART = bytes("itemsCart");
+    private static final byte[] CODE = bytes("code");
+    private static final byte[] PRICE = bytes("price");
+    private static final byte[] DESCRIPTION = bytes("description");
+
+    private final SupermarketStreamLoader lineLoader;      // builds returned customers, shares the products of the header
+    private final Supermarket supermarket;                  // name, times and products, customers only after loadCustomers
+    private final List<ByteBuffer> regions = new ArrayList<>();
+    private long[] lines = new long[1024];                  // region index << 32 | offset in the region, per customer line
+    private int numberOfLines;
+    private final ByteTable productCodes = new ByteTable();
+    private long[] pricesInCents = new long[16];            // price per product code id, the first product with a code wins
+    private final ByteTable zipcodes = new ByteTable();
+
+    // Fields of the last decoded customer, reused for every line.
+    private long queuedAtNanos;
+    private int zipcodeId;
+    private long billInCents;
+    private int numberOfItems;
+    private int codeStart;
+    private int codeEnd;
+    private int priceStart;
+    private int priceEnd;
+    private int descriptionStart;
+    private int descriptionEnd;
+    private long productPriceInCents;
+
+    private LazySupermarket(SupermarketStreamLoader headerLoader) {
+        this.lineLoader = new SupermarketStreamLoader(headerLoader);
+        this.supermarket = headerLoader.getSupermarket();
+        for (Product product : supermarket.getProducts()) {
+            byte[] code = bytes(product.getCode());
+            setPrice(productCodes.add(ByteBuffer.wrap(code), 0, code.length), product.getPriceInCents());
+        }
+    }
+
+    /**
+     * reads the header of the file and indexes the customer lines
+     * @return the indexed supermarket, null if the file can't be read
+     */
+    public static LazySupermarket open(String filename) {
+        Path path = Paths.get(filename);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] customersSection = ParallelSupermarketLoader.findCustomersSection(channel, size);
+
+            SupermarketStreamLoader headerLoader = new SupermarketStreamLoader(path.toString());
+            headerLoader.read(new ParallelSupermarketLoader.ByteBufferReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, customersSection[0])), "", null);
+            if (headerLoader.getSupermarket() == null) {
+                return null;
+            }
+            LazySupermarket lazySupermarket = new LazySupermarket(headerLoader);
+            lazySupermarket.index(channel, customersSection[1], size);
+            return lazySupermarket;
+        } catch (NoSuchFileException fileError) {
+            System.out.println("File not found.");
+        } catch (IOException | IllegalStateException | NumberFormatException | DateTimeParseException readError) {
+            System.out.println("File could not be read: " + readError.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * maps the customers section in newline aligned regions and keeps the position of every customer line.
+     * For a duplicate queuedAt only the first line in the file is kept, like the loaders do.
+     */
+    private void index(FileChannel channel, long start, long size) throws IOException {
+        long[] arrivals = new long[lines.length];
+        long regionStart = start;
+        while (regionStart < size) {
+            int length = (int) Math.min(REGION_SIZE, size - regionStart);
+            ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, length);
+            long regionIndex = regions.size();
+            regions.add(region);
+
+            int lineStart = 0;
+            boolean lastRegion = regionStart + length == size;
+            for (int i = 0; i <= length; i++) {
+                if (i == length ? lastRegion : region.get(i) == '\n') {
+                    int first = skipWhitespace(region, lineStart, i);
+                    if (first < i && region.get(first) == '{') { // Blank lines and anything that isn't a record are skipped.
+                        decode(region, first); // The whole line, so unknown cart products get their price in file order.
+                        if (numberOfLines == lines.length) {
+                            lines = Arrays.copyOf(lines, numberOfLines * 2);
+                            arrivals = Arrays.copyOf(arrivals, numberOfLines * 2);
+                        }
+                        lines[numberOfLines] = regionIndex << 32 | first;
+                        arrivals[numberOfLines++] = queuedAtNanos;
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart == 0) {
+                throw new IOException("Customer line longer than " + REGION_SIZE + " bytes");
+            }
+            regionStart += Math.min(lineStart, length); // The next region starts at the line that didn't fit.
+        }
+        removeDuplicates(arrivals);
+    }
+
+    private void removeDuplicates(long[] arrivals) {
+        int[] order = new int[numberOfLines];
+        for (int i = 0; i < numberOfLines; i++) {
+            order[i] = i;
+        }
+        sortByArrival(order, arrivals);
+
+        long[] sortedLines = new long[numberOfLines];
+        int kept = 0;
+        for (int i = 0; i < numberOfLines; i++) {
+            if (i == 0 || arrivals[order[i]] != arrivals[order[i - 1]]) { // The sort is stable, so the first line in the file stays.
+                sortedLines[kept++] = lines[order[i]];
+            }
+        }
+        lines = Arrays.copyOf(sortedLines, kept);
+        numberOfLines = kept;
+    }
+
+    /**
+     * stable merge sort of line numbers by arrival, without boxing the line numbers
+     */
+    private static void sortByArrival(int[] order, long[] arrivals) {
+        int[] source = order;
+        int[] target = new int[order.length];
+        for (int width = 1; width < order.length; width *= 2) {
+            for (int from = 0; from < order.length; from += 2 * width) {
+                int middle = Math.min(from + width, order.length);
+                int to = Math.min(from + 2 * width, order.length);
+                int left = from;
+                int right = middle;
+                for (int i = from; i < to; i++) {
+                    if (right >= to || (left < middle && arrivals[source[left]] <= arrivals[source[right]])) {
+                        target[i] = source[left++];
+                    } else {
+                        target[i] = source[right++];
+                    }
+                }
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != order) {
+            System.arraycopy(source, 0, order, 0, order.length);
+        }
+    }
+
+    /**
+     * @return number of customers, a duplicate queuedAt counted once
+     */
+    public int size() {
+        return numberOfLines;
+    }
+
+    /**
+     * @return supermarket with its name, opening times and products, customers are only in it after loadCustomers
+     */
+    public Supermarket getSupermarket() {
+        return supermarket;
+    }
+
+    /**
+     * @return total revenue of all customers in cents
+     */
+    public long findTotalRevenueInCents() {
+        long total = 0;
+        for (int i = 0; i < numberOfLines; i++) {
+            decodeLine(i);
+            total += billInCents;
+        }
+        return total;
+    }
+
+    public double findTotalRevenue() {
+        return Money.toEuros(findTotalRevenueInCents());
+    }
+
+    /**
+     * @return total number of items bought by all customers
+     */
+    public int getTotalNumberOfItems() {
+        int total = 0;
+        for (int i = 0; i < numberOfLines; i++) {
+            decodeLine(i);
+            total += numberOfItems;
+        }
+        return total;
+    }
+
+    /**
+     * @return revenue in cents per zip code, ordered by zip code
+     */
+    public Map<String, Long> getRevenueByZipcodeInCents() {
+        long[] revenues = new long[0];
+        for (int i = 0; i < numberOfLines; i++) {
+            decodeLine(i);
+            if (zipcodeId >= revenues.length) {
+                revenues = Arrays.copyOf(revenues, Math.max(zipcodes.size(), zipcodeId + 1));
+            }
+            revenues[zipcodeId] += billInCents;
+        }
+        Map<String, Long> revenueByZipcode = new TreeMap<>();
+        for (int id = 0; id < revenues.length; id++) {
+            revenueByZipcode.merge(zipcodes.getString(id), revenues[id], Long::sum); // Escaped spellings of one zip code end up together.
+        }
+        return revenueByZipcode;
+    }
+
+    public Map<String, Double> getRevenueByZipcode() {
+        Map<String, Double> revenueByZipcode = new TreeMap<>();
+        getRevenueByZipcodeInCents().forEach((zipCode, cents) -> revenueByZipcode.put(zipCode, Money.toEuros(cents)));
+        return revenueByZipcode;
+    }
+
+    /**
+     * finds the customer with the highest bill, only that customer is built
+     * @return first customer with the highest bill, null if there are no customers
+     */
+    public Customer findMostPayingCustomer() {
+        int highest = -1;
+        long highestBill = 0;
+        for (int i = 0; i < numberOfLines; i++) {
+            decodeLine(i);
+            if (highest < 0 || billInCents > highestBill) { // Lines are in queuedAt order, so on equal bills the first customer stays.
+                highest = i;
+                highestBill = billInCents;
+            }
+        }
+        return highest < 0 ? null : getCustomer(highest);
+    }
+
+    /**
+     * builds the customer at the index, customers are in queuedAt order
+     * @return the customer with its cart
+     */
+    public Customer getCustomer(int index) {
+        if (index < 0 || index >= numberOfLines) {
+            throw new IndexOutOfBoundsException("Customer " + index + " of " + numberOfLines);
+        }
+        ByteBuffer region = regions.get((int) (lines[index] >>> 32));
+        int start = (int) lines[index];
+        int end = start;
+        while (end < region.limit() && region.get(end) != '\n') {
+            end++;
+        }
+        List<Customer> customers = new ArrayList<>(1);
+        try {
+            lineLoader.read(new StringReader(text(region, start, end)), "Customers", customers::add);
+        } catch (IOException readError) {
+            throw new IllegalStateException("Customer " + index + " could not be read: " + readError.getMessage(), readError);
+        }
+        return customers.get(0);
+    }
+
+    /**
+     * builds all customers and adds them to the supermarket, the lazy queries keep working on the file
+     * @return the supermarket with all customers
+     */
+    public Supermarket loadCustomers() {
+        for (int i = 0; i < numberOfLines; i++) {
+            supermarket.getCustomers().add(getCustomer(i));
+        }
+        return supermarket;
+    }
+
+    private void decodeLine(int index) {
+        decode(regions.get((int) (lines[index] >>> 32)), (int) lines[index]);
+    }
+
+    /**
+     * decodes the queuedAt, zip code, bill and number of items of a customer object.
+     * Fields can be in any order, values of other fields are skipped without being decoded.
+     * @return position after the customer object
+     */
+    private int decode(ByteBuffer line, int position) {
+        queuedAtNanos = -1;
+        zipcodeId = -1;
+        billInCents = 0;
+        numberOfItems = 0;
+        position = expect(line, position, '{');
+        if (line.get(skipWhitespace(line, position, line.limit())) == '}') {
+            return expect(line, position, '}');
+        }
+        do {
+            int keyStart = skipWhitespace(line, position, line.limit());
+            int keyEnd = valueEnd(line, keyStart);
+            position = skipWhitespace(line, expect(line, keyEnd, ':'), line.limit());
+            int valueEnd = valueEnd(line, position);
+            if (isKey(line, keyStart, keyEnd, QUEUED_AT)) {
+                queuedAtNanos = parseTime(line, position, valueEnd);
+            } else if (isKey(line, keyStart, keyEnd, ZIP_CODE)) {
+                zipcodeId = zipcodes.add(line, unquotedStart(line, position), unquotedEnd(line, valueEnd));
+            } else if (isKey(line, keyStart, keyEnd, ITEMS_CART)) {
+                decodeCart(line, position);
+            }
+            position = skipWhitespace(line, valueEnd, line.limit());
+        } while (line.get(position++) == ',');
+        if (line.get(position - 1) != '}') {
+            throw malformed(line, position - 1);
+        }
+        if (queuedAtNanos < 0) {
+            throw malformed(line, position - 1);
+        }
+        return position;
+    }
+
+    /**
+     * adds every [product, amount] entry of the cart to the bill and the number of items
+     */
+    private void decodeCart(ByteBuffer line, int position) {
+        position = expect(line, position, '[');
+        if (line.get(skipWhitespace(line, position, line.limit())) == ']') {
+            return;
+        }
+        do {
+            position = expect(line, position, '[');
+            position = skipWhitespace(line, expect(line, decodeCartProduct(line, skipWhitespace(line, position, line.limit())), ','), line.limit());
+            int amountEnd = valueEnd(line, position);
+            int amount = parseInt(line, position, amountEnd);
+            position = skipWhitespace(line, expect(line, amountEnd, ']'), line.limit());
+            billInCents += productPriceInCents * amount;
+            numberOfItems += amount;
+        } while (line.get(position++) == ',');
+        if (line.get(position - 1) != ']') {
+            throw malformed(line, position - 1);
+        }
+    }
+
+    /**
+     * finds the price of the product in a cart entry by its code, a code that isn't in the Products section
+     * keeps the product of its first cart entry, shared with the line loader so built customers have the same price
+     * @return position after the product object
+     */
+    private int decodeCartProduct(ByteBuffer line, int position) {
+        codeStart = -1;
+        priceStart = -1;
+        descriptionStart = -1;
+        position = expect(line, position, '{');
+        if (line.get(skipWhitespace(line, position, line.limit())) != '}') {
+            do {
+                int keyStart = skipWhitespace(line, position, line.limit());
+                int keyEnd = valueEnd(line, keyStart);
+                position = skipWhitespace(line, expect(line, keyEnd, ':'), line.limit());
+                int valueEnd = valueEnd(line, position);
+                if (isKey(line, keyStart, keyEnd, CODE)) {
+                    codeStart = unquotedStart(line, position);
+                    codeEnd = unquotedEnd(line, valueEnd);
+                } else if (isKey(line, keyStart, keyEnd, PRICE)) {
+                    priceStart = unquotedStart(line, position);
+                    priceEnd = unquotedEnd(line, valueEnd);
+                } else if (isKey(line, keyStart, keyEnd, DESCRIPTION) && line.get(position) == '"') { // null stays without description.
+                    descriptionStart = position + 1;
+                    descriptionEnd = valueEnd - 1;
+                }
+                position = skipWhitespace(line, valueEnd, line.limit());
+            } while (line.get(position++) == ',');
+        }
+        if (codeStart < 0) {
+            throw malformed(line, position);
+        }
+
+        int id = productCodes.find(line, codeStart, codeEnd);
+        if (id < 0) { // Not seen before, or written with escapes: look it up by the decoded code.
+            byte[] code = bytes(text(line, codeStart, codeEnd));
+            id = productCodes.find(ByteBuffer.wrap(code), 0, code.length);
+            if (id < 0) {
+                id = productCodes.add(ByteBuffer.wrap(code), 0, code.length);
+                Product product = lineLoader.unknownProduct(new String(code, StandardCharsets.UTF_8),
+                        descriptionStart < 0 ? null : text(line, descriptionStart, descriptionEnd),
+                        priceStart < 0 ? 0 : Money.parseCents(text(line, priceStart, priceEnd)));
+                setPrice(id, product.getPriceInCents());
+            }
+        }
+        productPriceInCents = pricesInCents[id];
+        return position;
+    }
+
+    private void setPrice(int id, long priceInCents) {
+        if (id >= pricesInCents.length) {
+            pricesInCents = Arrays.copyOf(pricesInCents, Math.max(pricesInCents.length * 2, id + 1));
+        }
+        pricesInCents[id] = priceInCents;
+    }
+
+    private static boolean isKey(ByteBuffer line, int keyStart, int keyEnd, byte[] key) {
+        keyStart = unquotedStart(line, keyStart);
+        keyEnd = unquotedEnd(line, keyEnd);
+        if (keyEnd - keyStart != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (line.get(keyStart + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int unquotedStart(ByteBuffer line, int start) {
+        return line.get(start) == '"' ? start + 1 : start;
+    }
+
+    private static int unquotedEnd(ByteBuffer line, int end) {
+        return line.get(end - 1) == '"' ? end - 1 : end;
+    }
+
+    /**
+     * @return position right after the value (or key) that starts at the position
+     */
+    private static int valueEnd(ByteBuffer line, int position) {
+        byte first = line.get(position);
+        if (first == '"') {
+            for (int i = position + 1; i < line.limit(); i++) {
+                byte current = line.get(i);
+                if (current == '\\') {
+                    i++; // The escaped character can't end the string.
+                } else if (current == '"') {
+                    return i + 1;
+                }
+            }
+            throw malformed(line, position);
+        }
+        if (first == '{' || first == '[') {
+            int depth = 0;
+            for (int i = position; i < line.limit(); i++) {
+                byte current = line.get(i);
+                if (current == '"') {
+                    i = valueEnd(line, i) - 1;
+                } else if (current == '{' || current == '[') {
+                    depth++;
+                } else if ((current == '}' || current == ']') && --depth == 0) {
+                    return i + 1;
+                }
+            }
+            throw malformed(line, position);
+        }
+        int i = position;
+        while (i < line.limit() && !isDelimiter(line.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDelimiter(byte current) {
+        return current == ',' || current == '}' || current == ']' || current == ':' || current == ' ' || current == '\t'
+                || current == '\r' || current == '\n';
+    }
+
+    private static int skipWhitespace(ByteBuffer line, int position, int end) {
+        while (position < end) {
+            byte current = line.get(position);
+            if (current != ' ' && current != '\t' && current != '\r' && current != '\n') {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    private static int expect(ByteBuffer line, int position, char expected) {
+        position = skipWhitespace(line, position, line.limit());
+        if (position >= line.limit() || line.get(position) != expected) {
+            throw malformed(line, position);
+        }
+        return position + 1;
+    }
+
+    /**
+     * parses HH:mm, HH:mm:ss and HH:mm:ss.fraction without building a String, other notations go to LocalTime
+     * @return nano of day
+     */
+    private static long parseTime(ByteBuffer line, int start, int end) {
+        start = unquotedStart(line, start);
+        end = unquotedEnd(line, end);
+        int length = end - start;
+        if (length >= 5 && line.get(start + 2) == ':') {
+            int hour = twoDigits(line, start);
+            int minute = twoDigits(line, start + 3);
+            int second = 0;
+            long nanos = 0;
+            boolean valid = length == 5;
+            if (length >= 8 && line.get(start + 5) == ':') {
+                second = twoDigits(line, start + 6);
+                valid = length == 8;
+                if (length > 9 && length <= 18 && line.get(start + 8) == '.') {
+                    valid = true;
+                    for (int i = start + 9; i < end; i++) {
+                        int digit = line.get(i) - '0';
+                        valid &= digit >= 0 && digit <= 9;
+                        nanos = nanos * 10 + digit;
+                    }
+                    for (int i = length; i < 18; i++) {
+                        nanos *= 10;
+                    }
+                }
+            }
+            if (valid && hour >= 0 && hour < 24 && minute >= 0 && minute < 60 && second >= 0 && second < 60) {
+                return ((hour * 60L + minute) * 60 + second) * 1_000_000_000L + nanos;
+            }
+        }
+        return LocalTime.parse(text(line, start, end), DateTimeFormatter.ISO_LOCAL_TIME).toNanoOfDay();
+    }
+
+    private static int twoDigits(ByteBuffer line, int position) {
+        int tens = line.get(position) - '0';
+        int ones = line.get(position + 1) - '0';
+        return tens < 0 || tens > 9 || ones < 0 || ones > 9 ? -1 : tens * 10 + ones;
+    }
+
+    private static int parseInt(ByteBuffer line, int start, int end) {
+        boolean negative = line.get(start) == '-';
+        int value = 0;
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            int digit = line.get(i) - '0';
+            if (digit < 0 || digit > 9 || end - start > 9) { // Quoted, decimal or very long numbers.
+                return new BigDecimal(text(line, unquotedStart(line, start), unquotedEnd(line, end))).intValueExact();
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return the bytes as String, JSON escapes are decoded
+     */
+    private static String text(ByteBuffer line, int start, int end) {
+        byte[] raw = new byte[end - start];
+        for (int i = 0; i < raw.length; i++) {
+            raw[i] = line.get(start + i);
+        }
+        String value = new String(raw, StandardCharsets.UTF_8);
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        try {
+            return new JsonReader(new StringReader('"' + value + '"')).nextString();
+        } catch (IOException escapeError) {
+            throw new IllegalStateException("Malformed string: " + value, escapeError);
+        }
+    }
+
+    private static IllegalStateException malformed(ByteBuffer line, int position) {
+        return new IllegalStateException("Malformed customer at byte " + position + " of the mapped region");
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Open addressing hash table that gives byte strings a dense id, looked up straight from the mapped bytes
+     * so a known code or zip code never allocates.
+     */
+    private static final class ByteTable {
+        private int[] slots = new int[64];                  // id + 1 per slot, 0 for an empty slot
+        private byte[][] keys = new byte[16][];
+        private String[] strings = new String[16];          // decoded keys, built on first use
+        private int size;
+
+        private int size() {
+            return size;
+        }
+
+        private int find(ByteBuffer bytes, int start, int end) {
+            int mask = slots.length - 1;
+            for (int slot = hash(bytes, start, end) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                if (equals(keys[slots[slot] - 1], bytes, start, end)) {
+                    return slots[slot] - 1;
+                }
+            }
+            return -1;
+        }
+
+        private int add(ByteBuffer bytes, int start, int end) {
+            int id = find(bytes, start, end);
+            if (id >= 0) {
+                return id;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                strings = Arrays.copyOf(strings, size * 2);
+            }
+            byte[] key = new byte[end - start];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = bytes.get(start + i);
+            }
+            keys[size] = key;
+            if (++size * 2 > slots.length) { // Keeps the table at most half full.
+                rehash(slots.length * 2);
+            } else {
+                insert(size - 1);
+            }
+            return size - 1;
+        }
+
+        private String getString(int id) {
+            if (strings[id] == null) {
+                strings[id] = text(ByteBuffer.wrap(keys[id]), 0, keys[id].length);
+            }
+            return strings[id];
+        }
+
+        private void rehash(int capacity) {
+            slots = new int[capacity];
+            for (int id = 0; id < size; id++) {
+                insert(id);
+            }
+        }
+
+        private void insert(int id) {
+            int mask = slots.length - 1;
+            int slot = hash(ByteBuffer.wrap(keys[id]), 0, keys[id].length) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+
+        private static int hash(ByteBuffer bytes, int start, int end) {
+            int hash = 0x811c9dc5;                          // FNV-1a
+            for (int i = start; i < end; i++) {
+                hash = (hash ^ (bytes.get(i) & 0xff)) * 0x01000193;
+            }
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean equals(byte[] key, ByteBuffer bytes, int start, int end) {
+            if (key.length != end - start) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != bytes.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,372 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package utilities;
+
+import model.Customer;
+import model.Money;
+import model.Product;
+import model.ProductCatalog;
+import model.StatisticsAggregator;
+import model.Supermarket;
+import model.SupermarketStatistics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Processes a supermarket file that doesn't fit in memory. Customers are streamed from the file in batches of a fixed size
+ * and only the aggregates are kept: the statistics of a StatisticsAggregator and the revenue per second of the day.
+ * Only to drop a duplicate queuedAt, or to hand out the customers in queuedAt order, every batch is sorted and spilled
+ * to a run file on disk and the runs are merged afterwards, so at most one batch and one customer per open run are in memory.
+ * At most 64 runs are merged at once, more runs are first merged in groups into longer runs.
+ */
+public class OutOfCoreProcessor {
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_MERGE_FAN_IN = 64;    // runs that are open at once, with a buffer each
+
+    private final Path path;
+    private int batchSize = 1 << 16;
+    private Path spillDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+    private boolean deduplicate;
+
+    private Supermarket supermarket;
+    private StatisticsAggregator aggregator;
+    private long[] revenuePerSecond;                    // revenue in cents of the customers per second of arrival
+    private ProductCatalog catalog;                     // products of the spilled carts by id
+    private Map<String, Integer> zipcodeIds;            // zip codes of the spilled customers by id
+    private List<String> zipcodes;
+
+    public OutOfCoreProcessor(String filename) {
+        this.path = Paths.get(filename);
+    }
+
+    /**
+     * @param batchSize number of customers that are sorted and spilled at once
+     */
+    public OutOfCoreProcessor setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+        return this;
+    }
+
+    public OutOfCoreProcessor setSpillDirectory(Path spillDirectory) {
+        this.spillDirectory = spillDirectory;
+        return this;
+    }
+
+    /**
+     * @param deduplicate true to keep only the first customer of a duplicate queuedAt like the Supermarket does, this spills
+     *                    all customers to disk. False (the default) aggregates the batches right away and keeps every customer.
+     */
+    public OutOfCoreProcessor setDeduplicate(boolean deduplicate) {
+        this.deduplicate = deduplicate;
+        return this;
+    }
+
+    /**
+     * aggregates all customers of the file
+     * @return statistics of the customers, null if the file can't be processed
+     */
+    public SupermarketStatistics process() {
+        return process(null);
+    }
+
+    /**
+     * aggregates all customers of the file and hands them to the consumer in queuedAt order
+     * @param sortedConsumer receives every customer in queuedAt order, may be null
+     * @return statistics of the customers, null if the file can't be processed
+     */
+    public SupermarketStatistics process(Consumer<Customer> sortedConsumer) {
+        aggregator = new StatisticsAggregator();
+        revenuePerSecond = new long[SECONDS_PER_DAY];
+        catalog = new ProductCatalog();
+        zipcodeIds = new HashMap<>();
+        zipcodes = new ArrayList<>();
+        boolean sorted = deduplicate || sortedConsumer != null;
+        Batches batches = new Batches(sorted);
+        try {
+            supermarket = new SupermarketStreamLoader(path.toString()).load(batches::add);
+            if (supermarket == null) {
+                return null;
+            }
+            batches.finish(customer -> {
+                add(customer);
+                if (sortedConsumer != null) {
+                    sortedConsumer.accept(customer);
+                }
+            });
+            return aggregator.build();
+        } catch (IOException | UncheckedIOException spillError) {
+            System.out.println("Customers could not be spilled: " + spillError.getMessage());
+            return null;
+        } finally {
+            batches.deleteRuns();
+        }
+    }
+
+    private void add(Customer customer) {
+        aggregator.add(customer);
+        revenuePerSecond[customer.getQueuedAt().toSecondOfDay()] += customer.calculateTotalBillInCents();
+    }
+
+    /**
+     * @return supermarket with the name, opening times and products of the last processed file, without customers
+     */
+    public Supermarket getSupermarket() {
+        return supermarket;
+    }
+
+    /**
+     * calculates the revenues per time interval from the opening time, like Supermarket.calculateRevenuePerInterval
+     * @return Map with revenues per interval
+     */
+    public Map<LocalTime, Double> calculateRevenuePerInterval(int minutes) {
+        if (minutes <= 0) {
+            throw new IllegalArgumentException("Interval should be at least one minute: " + minutes);
+        }
+        Map<LocalTime, Double> revenuePerInterval = new TreeMap<>();
+        LocalTime currentTime = supermarket.getOpenTime();
+        while (currentTime.isBefore(supermarket.getClosingTime())) {
+            LocalTime intervalEnd = currentTime.plusMinutes(minutes);
+            if (!intervalEnd.isAfter(currentTime)) { // The interval passes midnight, so it's the last one.
+                revenuePerInterval.put(currentTime, revenueBetween(currentTime, null));
+                break;
+            }
+            revenuePerInterval.put(currentTime, revenueBetween(currentTime, intervalEnd));
+            currentTime = intervalEnd;
+        }
+        return revenuePerInterval;
+    }
+
+    /**
+     * calculates the revenue of the customers that queued between two whole seconds, only the revenue per second is kept
+     * @param to end of the interval, null for midnight
+     * @return revenue of customers with from <= queuedAt < to
+     */
+    public double revenueBetween(LocalTime from, LocalTime to) {
+        if (from.getNano() != 0 || (to != null && to.getNano() != 0)) {
+            throw new IllegalArgumentException("Revenue is kept per second, times should be whole seconds: " + from + " " + to);
+        }
+        long revenue = 0;
+        for (int second = from.toSecondOfDay(); second < (to == null ? SECONDS_PER_DAY : to.toSecondOfDay()); second++) {
+            revenue += revenuePerSecond[second];
+        }
+        return Money.toEuros(revenue);
+    }
+
+    private void writeCustomer(DataOutputStream output, Customer customer) throws IOException {
+        output.writeLong(customer.getQueuedAt().toNanoOfDay());
+        output.writeInt(zipcodeIds.computeIfAbsent(customer.getZipCode(), zipCode -> {
+            zipcodes.add(zipCode);
+            return zipcodes.size() - 1;
+        }));
+        output.writeInt(customer.getCartSize());
+        for (int i = 0; i < customer.getCartSize(); i++) {
+            output.writeInt(catalog.register(customer.getCartProduct(i)));
+            output.writeInt(customer.getCartQuantity(i));
+        }
+    }
+
+    /**
+     * @return the next customer of the run, null at the end of the run
+     */
+    private Customer readCustomer(DataInputStream input) throws IOException {
+        long queuedAt;
+        try {
+            queuedAt = input.readLong();
+        } catch (EOFException endOfRun) {
+            return null;
+        }
+        Customer customer = new Customer(LocalTime.ofNanoOfDay(queuedAt), zipcodes.get(input.readInt()));
+        int cartSize = input.readInt();
+        for (int i = 0; i < cartSize; i++) {
+            Product product = catalog.getProduct(input.readInt());
+            customer.addToCart(product, input.readInt());
+        }
+        return customer;
+    }
+
+    /**
+     * Collects the streamed customers in a batch. Unsorted batches are aggregated right away,
+     * sorted batches are spilled as runs once full and merged by finish.
+     */
+    private final class Batches {
+        private final boolean sorted;
+        private final Customer[] batch = new Customer[batchSize];
+        private int size;
+        private final List<Path> runs = new ArrayList<>();
+
+        private Batches(boolean sorted) {
+            this.sorted = sorted;
+        }
+
+        private void add(Customer customer) {
+            batch[size++] = customer;
+            if (size == batch.length) {
+                if (sorted) {
+                    spill();
+                } else {
+                    aggregate(OutOfCoreProcessor.this::add);
+                }
+            }
+        }
+
+        private void aggregate(Consumer<Customer> consumer) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(batch[i]);
+                batch[i] = null;
+            }
+            size = 0;
+        }
+
+        /**
+         * sorts the batch by queuedAt and writes it to a new run, the sort is stable so duplicates stay in file order
+         */
+        private void spill() {
+            Arrays.sort(batch, 0, size);
+            try {
+                Path run = Files.createTempFile(spillDirectory, "customers", ".run");
+                runs.add(run);
+                try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), BUFFER_SIZE))) {
+                    for (int i = 0; i < size; i++) {
+                        writeCustomer(output, batch[i]);
+                    }
+                }
+            } catch (IOException spillError) {
+                throw new UncheckedIOException(spillError);
+            }
+            Arrays.fill(batch, 0, size, null);
+            size = 0;
+        }
+
+        /**
+         * hands every customer to the consumer, merging the runs in queuedAt order when the batches were sorted.
+         * Without any run the last batch is still in memory and is sorted there.
+         */
+        private void finish(Consumer<Customer> consumer) throws IOException {
+            if (!sorted) {
+                aggregate(consumer);
+                return;
+            }
+            if (runs.isEmpty()) {
+                Arrays.sort(batch, 0, size);
+                aggregate(withoutDuplicates(consumer));
+                return;
+            }
+            if (size > 0) {
+                spill();
+            }
+            while (runs.size() > MAX_MERGE_FAN_IN) {
+                mergePass();
+            }
+            merge(runs, withoutDuplicates(consumer));
+        }
+
+        /**
+         * merges every group of consecutive runs into one longer run. Groups stay in file order,
+         * so on an equal queuedAt the customer of the earlier run still goes first.
+         */
+        private void mergePass() throws IOException {
+            List<Path> merged = new ArrayList<>();
+            for (int from = 0; from < runs.size(); from += MAX_MERGE_FAN_IN) {
+                List<Path> group = runs.subList(from, Math.min(from + MAX_MERGE_FAN_IN, runs.size()));
+                Path run = Files.createTempFile(spillDirectory, "customers", ".run");
+                merged.add(run);
+                try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), BUFFER_SIZE))) {
+                    merge(group, customer -> {
+                        try {
+                            writeCustomer(output, customer);
+                        } catch (IOException writeError) {
+                            throw new UncheckedIOException(writeError);
+                        }
+                    });
+                } catch (IOException | UncheckedIOException mergeError) {
+                    runs.addAll(merged); // Deleted with the other runs.
+                    throw mergeError;
+                }
+            }
+            deleteRuns();
+            runs.addAll(merged);
+        }
+
+        private Consumer<Customer> withoutDuplicates(Consumer<Customer> consumer) {
+            if (!deduplicate) {
+                return consumer;
+            }
+            Customer[] previous = new Customer[1];
+            return customer -> {
+                if (previous[0] == null || previous[0].compareTo(customer) != 0) { // Customers come sorted, so a duplicate follows its first.
+                    consumer.accept(customer);
+                    previous[0] = customer;
+                }
+            };
+        }
+
+        /**
+         * k-way merge of the runs. On an equal queuedAt the earlier run goes first, so the first customer of the file stays first.
+         */
+        private void merge(List<Path> runs, Consumer<Customer> consumer) throws IOException {
+            DataInputStream[] inputs = new DataInputStream[runs.size()];
+            Customer[] heads = new Customer[runs.size()];
+            PriorityQueue<Integer> queue = new PriorityQueue<>((run, other) -> {
+                int byTime = heads[run].compareTo(heads[other]);
+                return byTime != 0 ? byTime : Integer.compare(run, other);
+            });
+            try {
+                for (int run = 0; run < inputs.length; run++) {
+                    inputs[run] = new DataInputStream(new BufferedInputStream(Files.newInputStream(runs.get(run)), BUFFER_SIZE));
+                    heads[run] = readCustomer(inputs[run]);
+                    if (heads[run] != null) {
+                        queue.add(run);
+                    }
+                }
+                while (!queue.isEmpty()) {
+                    int run = queue.poll();
+                    consumer.accept(heads[run]);
+                    heads[run] = readCustomer(inputs[run]);
+                    if (heads[run] != null) {
+                        queue.add(run);
+                    }
+                }
+            } finally {
+                for (DataInputStream input : inputs) {
+                    if (input != null) {
+                        input.close();
+                    }
+                }
+            }
+        }
+
+        private void deleteRuns() {
+            for (Path run : runs) {
+                try {
+                    Files.deleteIfExists(run);
+                } catch (IOException deleteError) {
+                    System.out.println("Run could not be deleted: " + run);
+                }
+            }
+            runs.clear();
+        }
+    }
+}
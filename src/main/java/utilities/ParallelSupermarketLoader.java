@@ -0,0 +1,266 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package utilities;
+
+import metrics.Counter;
+import metrics.Metrics;
+import metrics.Timer;
+import model.Customer;
+import model.Supermarket;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loads a supermarket file in parallel. Every line after the Customers header is an independent customer record,
+ * so that section is memory mapped, split in newline aligned chunks and the chunks are parsed on a fork-join pool.
+ * The result is identical to the sequential SupermarketBuilder, including which duplicate queuedAt is kept.
+ */
+public class ParallelSupermarketLoader {
+
+    private static final byte[] CUSTOMERS_HEADER = "Customers".getBytes(StandardCharsets.US_ASCII);
+    private static final long MAX_CHUNK_SIZE = 64L << 20;   // keeps a single mapping well below the 2GB limit
+    private static final Timer LOAD_TIMER = Metrics.timer("loader.parallel");
+    private static final Counter RECORDS = Metrics.counter("loader.parallel.records");
+    private static final Counter BYTES = Metrics.counter("loader.parallel.bytes");
+    private static final Counter FAILURES = Metrics.counter("loader.parallel.failures");
+    private static final Counter ALLOCATED_BYTES = Metrics.counter("loader.parallel.allocatedBytes"); // summed over the threads of the pool
+
+    private final Path path;
+    private final ForkJoinPool pool;
+    private long minChunkSize = 1 << 20;    // smaller chunks are not worth a task
+
+    public ParallelSupermarketLoader(String filename) {
+        this(filename, ForkJoinPool.commonPool());
+    }
+
+    public ParallelSupermarketLoader(String filename, ForkJoinPool pool) {
+        this.path = Paths.get(filename);
+        this.pool = pool;
+    }
+
+    public ParallelSupermarketLoader setMinChunkSize(long minChunkSize) {
+        this.minChunkSize = Math.max(1, minChunkSize);
+        return this;
+    }
+
+    /**
+     * loads the supermarket, its products and all customers into the model
+     * @return the loaded supermarket, null if the file can't be found or read completely
+     */
+    public Supermarket load() {
+        long start = LOAD_TIMER.start();
+        long allocatedBefore = Metrics.allocatedBytes();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            BYTES.add(size);
+            long[] customersSection = findCustomersSection(channel, size);
+
+            // The header (Supermarket and Products) is small, so that part is read by the sequential stream loader.
+            SupermarketStreamLoader headerLoader = new SupermarketStreamLoader(path.toString());
+            headerLoader.read(new ByteBufferReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, customersSection[0])), "", null);
+            Supermarket supermarket = headerLoader.getSupermarket();
+            if (supermarket == null || customersSection[1] >= size) {
+                return supermarket;
+            }
+
+            List<ForkJoinTask<List<Customer>>> tasks = new ArrayList<>();
+            for (long[] chunk : splitInChunks(channel, customersSection[1], size)) {
+                tasks.add(pool.submit(() -> parseChunk(channel, chunk[0], chunk[1], headerLoader)));
+            }
+            List<Customer> customers = new ArrayList<>();
+            for (ForkJoinTask<List<Customer>> task : tasks) { // Joining in file order keeps the customers in file order.
+                try {
+                    customers.addAll(task.join());
+                } catch (RuntimeException chunkError) {
+                    throw chunkFailure(chunkError);
+                }
+            }
+            addInFileOrder(supermarket, customers);
+            return supermarket;
+        } catch (NoSuchFileException fileError) {
+            FAILURES.increment();
+            System.out.println("File not found.");
+        } catch (IOException | IllegalStateException | NumberFormatException | DateTimeParseException readError) {
+            FAILURES.increment();
+            System.out.println("File could not be read: " + readError.getMessage());
+        } finally {
+            Metrics.addAllocatedBytes(ALLOCATED_BYTES, allocatedBefore);
+            LOAD_TIMER.stop(start);
+        }
+        return null;
+    }
+
+    /**
+     * unwraps the failure of a chunk task, join wraps it in a RuntimeException (an IOException even twice)
+     * @return the original failure as IOException, so it is handled like a failure of the sequential loader
+     */
+    private static IOException chunkFailure(RuntimeException chunkError) {
+        Throwable cause = chunkError;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+    }
+
+    /**
+     * finds the Customers header line
+     * @return start of the header line and the start of the first customer line
+     */
+    static long[] findCustomersSection(FileChannel channel, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        long lineStart = 0;
+        int matched = 0;            // number of header bytes matched at the start of the current line, -1 if no match
+        long position = 0;
+
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte current = buffer.get(i);
+                if (current == '\n') {
+                    if (matched == CUSTOMERS_HEADER.length) {
+                        return new long[] {lineStart, position + i + 1};
+                    }
+                    lineStart = position + i + 1;
+                    matched = 0;
+                } else if (matched >= 0 && matched < CUSTOMERS_HEADER.length && current == CUSTOMERS_HEADER[matched]) {
+                    matched++;
+                } else if (!(current == '\r' && matched == CUSTOMERS_HEADER.length)) {
+                    matched = -1;
+                }
+            }
+            position += read;
+        }
+        if (matched == CUSTOMERS_HEADER.length) { // Header on the last line without any customers.
+            return new long[] {lineStart, size};
+        }
+        return new long[] {size, size};
+    }
+
+    /**
+     * splits the customer section in chunks that start right after a newline
+     * @return list of [start, end) byte ranges
+     */
+    private List<long[]> splitInChunks(FileChannel channel, long start, long size) throws IOException {
+        long length = size - start;
+        long chunkCount = Math.max(1, Math.min(pool.getParallelism() * 4L, length / minChunkSize));
+        chunkCount = Math.max(chunkCount, (length + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+
+        List<long[]> chunks = new ArrayList<>();
+        long chunkStart = start;
+        for (long i = 1; i <= chunkCount && chunkStart < size; i++) {
+            long chunkEnd = i == chunkCount ? size : nextLineStart(channel, start + length * i / chunkCount, size);
+            if (chunkEnd > chunkStart) {
+                chunks.add(new long[] {chunkStart, chunkEnd});
+                chunkStart = chunkEnd;
+            }
+        }
+        return chunks;
+    }
+
+    private long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static List<Customer> parseChunk(FileChannel channel, long start, long end, SupermarketStreamLoader headerLoader) throws IOException {
+        long allocatedBefore = Metrics.allocatedBytes();
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        List<Customer> customers = new ArrayList<>();
+        RECORDS.add(new SupermarketStreamLoader(headerLoader).read(new ByteBufferReader(mapped), "Customers", customers::add)); // Own loader per task, so the scratch buffers aren't shared.
+        Metrics.addAllocatedBytes(ALLOCATED_BYTES, allocatedBefore);
+        return customers;
+    }
+
+    /**
+     * adds the customers like the sequential loader would: for a duplicate queuedAt the first one in the file is kept.
+     * A stable sort keeps file order between duplicates, so keeping the first of each run gives the same set.
+     */
+    private static void addInFileOrder(Supermarket supermarket, List<Customer> customers) {
+        Customer[] sorted = customers.toArray(new Customer[0]);
+        Arrays.parallelSort(sorted, Comparator.naturalOrder()); // parallelSort on objects is stable.
+
+        Customer previous = null;
+        for (Customer customer : sorted) {
+            if (previous == null || previous.compareTo(customer) != 0) {
+                supermarket.getCustomers().add(customer);
+                previous = customer;
+            }
+        }
+    }
+
+    /**
+     * Reader that decodes UTF-8 straight out of a (mapped) byte buffer.
+     */
+    static final class ByteBufferReader extends Reader {
+        private final ByteBuffer bytes;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+        private final CharBuffer chars = CharBuffer.allocate(8192);
+
+        ByteBufferReader(ByteBuffer bytes) {
+            this.bytes = bytes;
+            chars.flip(); // Starts empty.
+        }
+
+        @Override
+        public int read(char[] target, int offset, int length) throws IOException {
+            if (!chars.hasRemaining()) {
+                if (!bytes.hasRemaining()) {
+                    return -1;
+                }
+                chars.clear();
+                CoderResult result = decoder.decode(bytes, chars, true); // Chunks end on a newline, so no character is ever split.
+                if (result.isError()) {
+                    result.throwException();
+                }
+                chars.flip();
+            }
+            int count = Math.min(length, chars.remaining());
+            chars.get(target, offset, count);
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
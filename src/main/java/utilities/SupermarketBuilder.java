@@ -7,6 +7,9 @@
 package utilities;
 
 import com.google.gson.*;
+import metrics.Counter;
+import metrics.Metrics;
+import metrics.Timer;
 import model.Customer;
 import model.Product;
 import model.Supermarket;
@@ -18,7 +21,11 @@ import java.time.format.DateTimeFormatter;
 import java.util.Scanner;
 
 public class SupermarketBuilder {
-
+    private static final Timer ADD_CUSTOMERS_TIMER = Metrics.timer("loader.builder.addCustomers");
+    private static final Counter RECORDS = Metrics.counter("loader.builder.addCustomers.records");
+    private static final Counter BYTES = Metrics.counter("loader.builder.addCustomers.bytes");
+    private static final Counter FAILURES = Metrics.counter("loader.builder.addCustomers.failures");
+    private static final Counter FILES_NOT_FOUND = Metrics.counter("loader.builder.filesNotFound");
 
     private Supermarket supermarket;
     private Scanner scanner;
@@ -30,6 +37,7 @@ public class SupermarketBuilder {
         try  {
             scanner = new Scanner(new File(filename));
         } catch (FileNotFoundException fileError) {
+            FILES_NOT_FOUND.increment();
             System.out.println("File not found.");
         }
         gson = new GsonBuilder().enableComplexMapKeySerialization()
@@ -37,9 +45,44 @@ public class SupermarketBuilder {
                         (json, typeOfT, context) -> LocalTime.parse(json.getAsString(), DateTimeFormatter.ISO_LOCAL_TIME))
                 .registerTypeAdapter(LocalTime.class, (JsonSerializer<LocalTime>)
                         (src, typeOfSrc, context) -> new JsonPrimitive(src.format(DateTimeFormatter.ISO_LOCAL_TIME)))
+                .registerTypeAdapter(Customer.class, (JsonDeserializer<Customer>)
+                        (json, typeOfT, context) -> readCustomer(json.getAsJsonObject(), context))
+                .registerTypeAdapter(Product.class, (JsonDeserializer<Product>)
+                        (json, typeOfT, context) -> readProduct(json.getAsJsonObject()))
                 .create();
     }
 
+    /**
+     * builds a product through its constructor, which works out the price in cents once
+     * @return product with the code, description and price of the json object
+     */
+    private static Product readProduct(JsonObject json) {
+        return new Product(stringOf(json, "code"), stringOf(json, "description"), json.has("price") ? json.get("price").getAsDouble() : 0.0);
+    }
+
+    private static String stringOf(JsonObject json, String member) {
+        JsonElement value = json.get(member);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    /**
+     * builds a customer through addToCart, the cart is stored in arrays and not in a map Gson could fill.
+     * Cart products that the supermarket already knows are looked up by code, so no new Product is made for them.
+     * @return customer with all items of the itemsCart array
+     */
+    private Customer readCustomer(JsonObject json, JsonDeserializationContext context) {
+        Customer customer = new Customer(context.deserialize(json.get("queuedAt"), LocalTime.class), json.get("zipCode").getAsString());
+        if (json.has("itemsCart")) {
+            for (JsonElement item : json.getAsJsonArray("itemsCart")) { // Every item is a [product, amount] pair.
+                JsonArray pair = item.getAsJsonArray();
+                JsonElement code = pair.get(0).getAsJsonObject().get("code");
+                Product known = supermarket == null || code == null ? null : supermarket.getProduct(code.getAsString());
+                customer.addToCart(known != null ? known : context.deserialize(pair.get(0), Product.class), pair.get(1).getAsInt());
+            }
+        }
+        return customer;
+    }
+
     public SupermarketBuilder initializeSupermarket() {
         while (scanner.hasNext()) {
             if (scanner.nextLine().equals("Supermarket")) {
@@ -71,14 +114,26 @@ public class SupermarketBuilder {
     }
 
     public SupermarketBuilder addCustomers() {
-        while (scanner.hasNext()) {
-            String nextLine = scanner.nextLine();
-            if (isCustomer) {
-                supermarket.getCustomers().add(gson.fromJson(nextLine, Customer.class));
-            }
-            if (nextLine.equals("Customers")) {
-                isCustomer = true;
+        long start = ADD_CUSTOMERS_TIMER.start();
+        try {
+            while (scanner.hasNext()) {
+                String nextLine = scanner.nextLine();
+                if (isCustomer) {
+                    try {
+                        supermarket.getCustomers().add(gson.fromJson(nextLine, Customer.class));
+                    } catch (JsonParseException parseError) {
+                        FAILURES.increment();
+                        throw parseError;
+                    }
+                    RECORDS.increment();
+                    BYTES.add(nextLine.length() + 1); // Characters of the line and its line break, equal to bytes for the ASCII snapshots.
+                }
+                if (nextLine.equals("Customers")) {
+                    isCustomer = true;
+                }
             }
+        } finally {
+            ADD_CUSTOMERS_TIMER.stop(start);
         }
         return this;
     }
@@ -0,0 +1,81 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package utilities;
+
+import model.Supermarket;
+import model.SupermarketChain;
+import model.SupermarketStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loads the files of many stores in parallel into a SupermarketChain. Every file is loaded and aggregated on its own task,
+ * after which only the statistics of the store are kept, so the customers of all stores are never in memory at once.
+ */
+public class SupermarketChainLoader {
+    private final List<String> filenames;
+    private final ForkJoinPool pool;
+
+    public SupermarketChainLoader(List<String> filenames) {
+        this(filenames, ForkJoinPool.commonPool());
+    }
+
+    public SupermarketChainLoader(List<String> filenames, ForkJoinPool pool) {
+        this.filenames = new ArrayList<>(filenames);
+        this.pool = pool;
+    }
+
+    /**
+     * loads all stores into a new chain
+     * @return the chain, files that can't be found or read completely (like a truncated file) are left out
+     */
+    public SupermarketChain load() {
+        return load(new SupermarketChain());
+    }
+
+    /**
+     * loads the stores and adds them to a chain that may already hold other stores, those aren't aggregated again
+     * @return the chain
+     */
+    public SupermarketChain load(SupermarketChain chain) {
+        List<ForkJoinTask<Store>> tasks = new ArrayList<>();
+        for (String filename : filenames) {
+            tasks.add(pool.submit(() -> loadStore(filename)));
+        }
+        for (ForkJoinTask<Store> task : tasks) { // Adding in file order keeps the order of the stores the same on every run.
+            Store store = task.join();
+            if (store != null) {
+                chain.addStore(store.name, store.statistics);
+            }
+        }
+        return chain;
+    }
+
+    private static Store loadStore(String filename) {
+        Supermarket supermarket = new SupermarketStreamLoader(filename).load();
+        if (supermarket == null) {
+            return null;
+        }
+        return new Store(supermarket.getName(), supermarket.getStatistics()); // The customers can be collected after this.
+    }
+
+    /**
+     * Name and statistics of one loaded store.
+     */
+    private static final class Store {
+        private final String name;
+        private final SupermarketStatistics statistics;
+
+        private Store(String name, SupermarketStatistics statistics) {
+            this.name = name;
+            this.statistics = statistics;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package utilities;
+
+import model.Customer;
+import model.Product;
+import model.ProductCatalog;
+import model.Supermarket;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary snapshot of a loaded supermarket, to reload it much faster than parsing the JSON text again.
+ * Every product is written once in a dictionary and carts refer to it by id, zip codes are a dictionary as well.
+ * Customers are written in queuedAt order with the seconds as difference to the previous customer,
+ * and all numbers are variable length (7 bits per byte), so most customer fields take a single byte.
+ * Strings and the opening times may be null, they are written with one more than their length or time so 0 can mean null.
+ * The reader maps the file in memory and decodes it straight from the mapped bytes.
+ */
+public class SupermarketSnapshot {
+    private static final int MAGIC = 0x534d4b54;            // "SMKT"
+    private static final int FORMAT_VERSION = 2;            // 2 can hold null strings and times
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long WINDOW_SIZE = 1L << 28;       // bytes mapped at a time, files can be bigger than one mapping
+
+    private final Path path;
+    private FileChannel channel;
+    private ByteBuffer window;          // mapped part of the file that is being read
+    private long windowStart;           // file position of the start of the window
+    private long size;                  // size of the file
+
+    public SupermarketSnapshot(String filename) {
+        this.path = Paths.get(filename);
+    }
+
+    /**
+     * writes the supermarket, its products and all customers to the snapshot file
+     * @return true if the snapshot was written
+     */
+    public boolean write(Supermarket supermarket) {
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE)) {
+            writeInt(output, MAGIC);
+            writeVarLong(output, FORMAT_VERSION);
+            writeString(output, supermarket.getName());
+            writeTime(output, supermarket.getOpenTime());
+            writeTime(output, supermarket.getClosingTime());
+
+            // The catalog holds the products and the cart products that aren't in the Products section.
+            ProductCatalog catalog = supermarket.getCatalog();
+            writeVarLong(output, catalog.size());
+            for (int id = 0; id < catalog.size(); id++) {
+                Product product = catalog.getProduct(id);
+                writeString(output, product.getCode());
+                writeString(output, product.getDescription());
+                writeVarLong(output, zigZag(product.getPriceInCents()));
+                output.write(supermarket.getProducts().contains(product) ? 1 : 0);
+            }
+
+            Map<String, Integer> zipcodeIds = new HashMap<>();
+            for (Customer customer : supermarket.getCustomers()) {
+                zipcodeIds.putIfAbsent(customer.getZipCode(), zipcodeIds.size());
+            }
+            String[] zipcodes = new String[zipcodeIds.size()];
+            zipcodeIds.forEach((zipCode, id) -> zipcodes[id] = zipCode);
+            writeVarLong(output, zipcodes.length);
+            for (String zipCode : zipcodes) {
+                writeString(output, zipCode);
+            }
+
+            writeVarLong(output, supermarket.getCustomers().size());
+            int previousSecond = 0;
+            for (Customer customer : supermarket.getCustomers()) { // queuedAt order, so the differences are never negative.
+                LocalTime queuedAt = customer.getQueuedAt();
+                writeVarLong(output, queuedAt.toSecondOfDay() - previousSecond);
+                writeVarLong(output, queuedAt.getNano());
+                previousSecond = queuedAt.toSecondOfDay();
+                writeVarLong(output, zipcodeIds.get(customer.getZipCode()));
+                writeVarLong(output, customer.getCartSize());
+                for (int i = 0; i < customer.getCartSize(); i++) {
+                    writeVarLong(output, catalog.getId(customer.getCartProduct(i)));
+                    writeVarLong(output, zigZag(customer.getCartQuantity(i)));
+                }
+                writeVarLong(output, zigZag(customer.getActualWaitingTime()));
+                writeVarLong(output, zigZag(customer.getActualCheckOutTime()));
+            }
+            return true;
+        } catch (IOException writeError) {
+            System.out.println("Snapshot could not be written: " + writeError.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * rebuilds the supermarket from the snapshot file
+     * @return the loaded supermarket, null if the file can't be read
+     */
+    public Supermarket load() {
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel = fileChannel;
+            size = channel.size();
+            windowStart = 0;
+            window = ByteBuffer.allocate(0);
+            ensure(4);
+            if (window.getInt() != MAGIC || readVarLong() != FORMAT_VERSION) {
+                System.out.println("Not a supermarket snapshot: " + path);
+                return null;
+            }
+            Supermarket supermarket = new Supermarket(readString(), readTime(), readTime());
+
+            Product[] products = new Product[readCount()];
+            for (int id = 0; id < products.length; id++) {
+                products[id] = Product.ofCents(readString(), readString(), unZigZag(readVarLong()));
+                ensure(1);
+                if (window.get() == 1) {
+                    supermarket.getProducts().add(products[id]);
+                }
+            }
+
+            String[] zipcodes = new String[readCount()];
+            for (int id = 0; id < zipcodes.length; id++) {
+                zipcodes[id] = readString();
+            }
+
+            int customers = readCount();
+            int second = 0;
+            for (int i = 0; i < customers; i++) {
+                second += (int) readVarLong();
+                Customer customer = new Customer(LocalTime.ofNanoOfDay(second * 1_000_000_000L + readVarLong()), lookup(zipcodes, readCount()));
+                int cartSize = readCount();
+                for (int entry = 0; entry < cartSize; entry++) {
+                    customer.addToCart(lookup(products, readCount()), (int) unZigZag(readVarLong()));
+                }
+                customer.setActualWaitingTime((int) unZigZag(readVarLong()));
+                customer.setActualCheckOutTime((int) unZigZag(readVarLong()));
+                supermarket.getCustomers().add(customer);
+            }
+            return supermarket;
+        } catch (NoSuchFileException fileError) {
+            System.out.println("File not found.");
+        } catch (IOException | DateTimeException readError) { // DateTimeException for a time beyond one day in a corrupt file.
+            System.out.println("File could not be read: " + readError.getMessage());
+        } finally {
+            channel = null;
+            window = null;
+        }
+        return null;
+    }
+
+    /**
+     * makes sure the window holds the next bytes, mapping the next part of the file when it doesn't
+     */
+    private void ensure(int bytes) throws IOException {
+        if (window.remaining() >= bytes) {
+            return;
+        }
+        windowStart += window.position();
+        if (windowStart + bytes > size) {
+            throw new IOException("Snapshot ends too early");
+        }
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(Math.max(WINDOW_SIZE, bytes), size - windowStart));
+    }
+
+    private long readVarLong() throws IOException {
+        ensure((int) Math.min(10, size - windowStart - window.position())); // At most 10 bytes, fewer at the end of the file.
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!window.hasRemaining()) { // Only at the end of the file, ensure mapped all bytes that are left.
+                throw new IOException("Snapshot ends too early");
+            }
+            byte next = window.get();
+            value |= (long) (next & 0x7f) << shift;
+            if (next >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed number in snapshot");
+    }
+
+    /**
+     * @return the dictionary entry with the id, an id outside the dictionary means the snapshot is corrupt
+     */
+    private static <T> T lookup(T[] dictionary, int id) throws IOException {
+        if (id >= dictionary.length) {
+            throw new IOException("Unknown id in snapshot: " + id + " of " + dictionary.length);
+        }
+        return dictionary[id];
+    }
+
+    private int readCount() throws IOException {
+        long count = readVarLong();
+        if (count < 0 || count > Integer.MAX_VALUE) {
+            throw new IOException("Malformed count in snapshot: " + count);
+        }
+        return (int) count;
+    }
+
+    /**
+     * @return the string, null if a null string was written
+     */
+    private String readString() throws IOException {
+        int lengthPlusOne = readCount();
+        if (lengthPlusOne == 0) {
+            return null;
+        }
+        int length = lengthPlusOne - 1;
+        ensure(length);
+        String value = StandardCharsets.UTF_8.decode(window.slice().limit(length)).toString();
+        window.position(window.position() + length);
+        return value;
+    }
+
+    private static void writeInt(OutputStream output, int value) throws IOException {
+        output.write(value >>> 24);
+        output.write(value >>> 16);
+        output.write(value >>> 8);
+        output.write(value);
+    }
+
+    private static void writeVarLong(OutputStream output, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            output.write((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+
+    private LocalTime readTime() throws IOException {
+        long nanoOfDayPlusOne = readVarLong();
+        return nanoOfDayPlusOne == 0 ? null : LocalTime.ofNanoOfDay(nanoOfDayPlusOne - 1);
+    }
+
+    private static void writeString(OutputStream output, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(output, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(output, bytes.length + 1L);
+        output.write(bytes);
+    }
+
+    private static void writeTime(OutputStream output, LocalTime time) throws IOException {
+        writeVarLong(output, time == null ? 0 : time.toNanoOfDay() + 1);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63); // Small negative numbers also become small positive numbers.
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
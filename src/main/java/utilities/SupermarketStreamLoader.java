@@ -0,0 +1,304 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author:  Mack Bakkum - 500721202
+ * @dates: 03 - 05 July 2024
+ */
+
+package utilities;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import metrics.Counter;
+import metrics.Metrics;
+import metrics.Timer;
+import model.Customer;
+import model.Money;
+import model.Product;
+import model.Supermarket;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Loads a supermarket file in one streaming pass with a token level JsonReader.
+ * Cart entries are resolved by product code against the products that were already loaded,
+ * so no new Product object is created per cart entry.
+ */
+public class SupermarketStreamLoader {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final Timer LOAD_TIMER = Metrics.timer("loader.stream");
+    private static final Counter RECORDS = Metrics.counter("loader.stream.records");
+    private static final Counter BYTES = Metrics.counter("loader.stream.bytes");
+    private static final Counter FAILURES = Metrics.counter("loader.stream.failures");
+    private static final Counter ALLOCATED_BYTES = Metrics.counter("loader.stream.allocatedBytes");
+
+    private final Path path;
+    private Supermarket supermarket;
+    private final Map<String, Product> productsByCode = new HashMap<>();     // first product per code, same as the HashSet in Supermarket
+    private final Map<String, Product> unknownProducts;  // cart products that are not in the Products section, shared by the loaders of one file
+    private final AtomicReference<Product> unknownWithoutCode; // cart product without a code that is not in the Products section, shared as well
+
+    // Scratch buffers that are reused for every customer so reading a cart doesn't allocate new lists.
+    private final List<Product> cartProducts = new ArrayList<>();
+    private int[] cartAmounts = new int[16];
+
+    public SupermarketStreamLoader(String filename) {
+        this.path = Paths.get(filename);
+        this.unknownProducts = new ConcurrentHashMap<>(); // Chunk loaders on other threads add to it as well.
+        this.unknownWithoutCode = new AtomicReference<>();
+    }
+
+    /**
+     * creates a loader for a part of the customers section that resolves cart products against
+     * the products of an already loaded header. The products are only read, so loaders can share them between threads.
+     * Cart products that aren't in the header are shared as well, so every loader uses one instance per code.
+     */
+    SupermarketStreamLoader(SupermarketStreamLoader headerLoader) {
+        this.path = headerLoader.path;
+        this.supermarket = headerLoader.supermarket;
+        this.productsByCode.putAll(headerLoader.productsByCode);
+        this.unknownProducts = headerLoader.unknownProducts;
+        this.unknownWithoutCode = headerLoader.unknownWithoutCode;
+    }
+
+    /**
+     * loads the supermarket, its products and all customers into the model
+     * @return the loaded supermarket, null if the file can't be found or read completely
+     */
+    public Supermarket load() {
+        return load(null);
+    }
+
+    /**
+     * loads the supermarket and its products and streams every customer to the consumer
+     * instead of keeping them in the model. If the consumer is null customers are added to the supermarket.
+     * When reading fails partway the consumer has already received the customers before the failure.
+     * @return the loaded supermarket, null if the file can't be found or read completely
+     */
+    public Supermarket load(Consumer<Customer> customerConsumer) {
+        long start = LOAD_TIMER.start();
+        long allocatedBefore = Metrics.allocatedBytes();
+        try (Reader fileReader = new BufferedReader(Files.newBufferedReader(path, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            RECORDS.add(read(fileReader, "", customerConsumer));
+            if (Metrics.isEnabled()) {
+                BYTES.add(Files.size(path));
+            }
+        } catch (NoSuchFileException fileError) {
+            FAILURES.increment();
+            System.out.println("File not found.");
+            return null;
+        } catch (IOException | IllegalStateException | NumberFormatException | DateTimeParseException readError) {
+            FAILURES.increment();
+            System.out.println("File could not be read: " + readError.getMessage());
+            return null; // A partly loaded supermarket would look complete to the caller.
+        } finally {
+            Metrics.addAllocatedBytes(ALLOCATED_BYTES, allocatedBefore);
+            LOAD_TIMER.stop(start);
+        }
+        return supermarket;
+    }
+
+    /**
+     * reads all sections from the reader, starting in the given section. Section headers (Supermarket, Products, Customers) are read as unquoted
+     * strings in lenient mode, every other value is a record of the current section.
+     * @return number of customer records that were read
+     */
+    int read(Reader source, String section, Consumer<Customer> customerConsumer) throws IOException {
+        JsonReader reader = new JsonReader(source);
+        reader.setLenient(true); // Lenient mode accepts the unquoted section names and multiple top level values.
+        int customers = 0;
+
+        while (reader.peek() != JsonToken.END_DOCUMENT) {
+            if (reader.peek() == JsonToken.STRING) {
+                section = reader.nextString();
+                continue;
+            }
+            switch (section) {
+                case "Supermarket":
+                    supermarket = readSupermarket(reader);
+                    break;
+                case "Products":
+                    addProduct(readProduct(reader));
+                    break;
+                case "Customers":
+                    Customer customer = readCustomer(reader);
+                    customers++;
+                    if (customerConsumer != null) {
+                        customerConsumer.accept(customer);
+                    } else {
+                        supermarket.getCustomers().add(customer);
+                    }
+                    break;
+                default:
+                    reader.skipValue(); // Unknown section, nothing to do with it.
+            }
+        }
+        return customers;
+    }
+
+    private Supermarket readSupermarket(JsonReader reader) throws IOException {
+        String name = null;
+        LocalTime openTime = null;
+        LocalTime closingTime = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name": name = nextString(reader); break;
+                case "openTime": openTime = parseTime(nextString(reader)); break;
+                case "closingTime": closingTime = parseTime(nextString(reader)); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new Supermarket(name, openTime, closingTime);
+    }
+
+    private Product readProduct(JsonReader reader) throws IOException {
+        String code = null;
+        String description = null;
+        long priceInCents = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "code": code = nextString(reader); break;
+                case "description": description = nextString(reader); break;
+                case "price": priceInCents = parsePrice(nextString(reader)); break; // Straight from the text into cents, no double in between.
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return Product.ofCents(code, description, priceInCents);
+    }
+
+    private void addProduct(Product product) {
+        if (supermarket.getProducts().add(product)) { // Only the first product with a code is kept, just like the HashSet does.
+            productsByCode.put(product.getCode(), product);
+        }
+    }
+
+    private Customer readCustomer(JsonReader reader) throws IOException {
+        LocalTime queuedAt = null;
+        String zipCode = null;
+        int cartSize = 0;
+        cartProducts.clear();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "queuedAt": queuedAt = parseTime(nextString(reader)); break;
+                case "zipCode": zipCode = nextString(reader); break;
+                case "itemsCart":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        reader.beginArray(); // Every cart entry is a [product, amount] pair.
+                        cartProducts.add(readCartProduct(reader));
+                        if (cartSize == cartAmounts.length) {
+                            cartAmounts = Arrays.copyOf(cartAmounts, cartSize * 2);
+                        }
+                        cartAmounts[cartSize++] = reader.nextInt();
+                        reader.endArray();
+                    }
+                    reader.endArray();
+                    break;
+                default: reader.skipValue(); // Fields like actualWaitingTime are not part of the input data.
+            }
+        }
+        reader.endObject();
+
+        Customer customer = new Customer(queuedAt, zipCode);
+        for (int i = 0; i < cartSize; i++) {
+            customer.addToCart(cartProducts.get(i), cartAmounts[i]);
+        }
+        return customer;
+    }
+
+    Supermarket getSupermarket() {
+        return supermarket;
+    }
+
+    /**
+     * reads the embedded product of a cart entry, only the code is needed when the product is already known.
+     * @return the loaded product with the same code
+     */
+    private Product readCartProduct(JsonReader reader) throws IOException {
+        String code = null;
+        String description = null;
+        long priceInCents = 0;
+        Product known = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (field.equals("code")) {
+                code = nextString(reader);
+                known = productsByCode.get(code);
+            } else if (known == null && field.equals("description")) {
+                description = nextString(reader);
+            } else if (known == null && field.equals("price")) {
+                priceInCents = parsePrice(nextString(reader));
+            } else {
+                reader.skipValue(); // Skipping doesn't build a String for the value.
+            }
+        }
+        reader.endObject();
+
+        if (known == null) { // Code isn't in the Products section (or came after the other fields), keep one instance per code.
+            known = productsByCode.get(code);
+        }
+        if (known == null) {
+            known = unknownProduct(code, description, priceInCents);
+        }
+        return known;
+    }
+
+    /**
+     * gives the one product for a cart code that isn't in the Products section, the first cart entry with the code is kept
+     * @return the shared product with the code
+     */
+    Product unknownProduct(String code, String description, long priceInCents) {
+        if (code == null) { // The concurrent map has no null key, so the product without a code is kept apart.
+            unknownWithoutCode.compareAndSet(null, Product.ofCents(null, description, priceInCents));
+            return unknownWithoutCode.get();
+        }
+        return unknownProducts.computeIfAbsent(code, key -> Product.ofCents(key, description, priceInCents));
+    }
+
+    /**
+     * @return the string value, null for a JSON null like Gson gives for a missing value
+     */
+    private static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static long parsePrice(String price) {
+        return price == null ? 0 : Money.parseCents(price); // Gson leaves a null price at 0.0.
+    }
+
+    private static LocalTime parseTime(String time) {
+        return time == null ? null : LocalTime.parse(time, DateTimeFormatter.ISO_LOCAL_TIME);
+    }
+}
@@ -0,0 +1,136 @@
+package tests;
+
+import model.Customer;
+import model.Product;
+import model.Supermarket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import simulation.CashierModel;
+import simulation.CheckoutSimulation;
+import simulation.CheckoutWorkload;
+import simulation.SimulationResult;
+import simulation.StaffingSweep;
+import simulation.SweepTable;
+import utilities.SupermarketBuilder;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.number.IsCloseTo.closeTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestMethodOrder(MethodOrderer.Alphanumeric.class)
+class CheckoutSimulationTest {
+
+    private final CashierModel regular = new CashierModel("regular", 2.0, 10.0);
+    private final CashierModel express = new CashierModel("express", 1.0, 5.0, 3);
+    private Supermarket supermarket;
+    private Customer customer1, customer2, customer3;
+
+    @BeforeEach
+    void setup() {
+        Product product = new Product("A001", "Any-1", 1.0);
+        supermarket = new Supermarket("Test", LocalTime.NOON, LocalTime.NOON.plusHours(1));
+        supermarket.getProducts().add(product);
+        customer1 = new Customer(LocalTime.NOON, "1000AA");
+        customer1.addToCart(product, 5);
+        customer2 = new Customer(LocalTime.NOON.plusSeconds(5), "1000AB");
+        customer2.addToCart(product, 1);
+        customer3 = new Customer(LocalTime.NOON.plusSeconds(10), "1000AC");
+        customer3.addToCart(product, 2);
+        supermarket.getCustomers().add(customer3);
+        supermarket.getCustomers().add(customer1);
+        supermarket.getCustomers().add(customer2);
+    }
+
+    @Test
+    void t061_singleCashierServesCustomersInArrivalOrder() {
+        SimulationResult result = new CheckoutSimulation().addCashiers(regular, 1).simulate(supermarket);
+
+        assertEquals(0, customer1.getActualWaitingTime());
+        assertEquals(20, customer1.getActualCheckOutTime());
+        assertEquals(15, customer2.getActualWaitingTime());
+        assertEquals(12, customer2.getActualCheckOutTime());
+        assertEquals(22, customer3.getActualWaitingTime());
+        assertEquals(14, customer3.getActualCheckOutTime());
+
+        assertEquals(3, result.getNumberOfCustomers());
+        assertEquals(15, result.getMedianWait());
+        assertEquals(22, result.getMaxWait());
+        assertEquals(1, result.getMaxQueueLength());
+        assertThat(result.getUtilisation(), closeTo(1.0, 0.0001));
+        assertEquals(LocalTime.NOON.toSecondOfDay() + 46, result.getLastCheckOutSecond());
+    }
+
+    @Test
+    void t062_expressCashierOnlyTakesSmallCarts() {
+        SimulationResult result = new CheckoutSimulation().addCashiers(express, 1).addCashiers(regular, 1).simulate(supermarket);
+
+        assertEquals(0, customer1.getActualWaitingTime());   // 5 items, only the regular cashier
+        assertEquals(20, customer1.getActualCheckOutTime());
+        assertEquals(0, customer2.getActualWaitingTime());   // express, done at 11 seconds
+        assertEquals(6, customer2.getActualCheckOutTime());
+        assertEquals(1, customer3.getActualWaitingTime());   // express is free before the regular cashier
+        assertEquals(7, customer3.getActualCheckOutTime());
+        assertEquals(1, result.getMaxWait());
+
+        assertThrows(IllegalStateException.class, () -> new CheckoutSimulation().addCashiers(express, 2).simulate(supermarket));
+    }
+
+    @Test
+    void t063_runOnSharedWorkloadEqualsSimulateAndKeepsCustomers() {
+        Supermarket supermarket5 = new SupermarketBuilder("src/main/resources/jambi5Json.txt").initializeSupermarket().addProducts().addCustomers().create();
+        CheckoutSimulation simulation = new CheckoutSimulation().addCashiers(express, 1).addCashiers(regular, 1);
+
+        SimulationResult shared = simulation.run(new CheckoutWorkload(supermarket5));
+        for (Customer customer : supermarket5.getCustomers()) {
+            assertEquals(0, customer.getActualCheckOutTime());
+        }
+        SimulationResult simulated = simulation.simulate(supermarket5);
+        assertEquals(simulated.toString(), shared.toString());
+        for (Customer customer : supermarket5.getCustomers()) {
+            assertTrue(customer.getActualWaitingTime() >= 0);
+            assertTrue(customer.getActualCheckOutTime() > 0);
+        }
+    }
+
+    @Test
+    void t064_evaluationWindowOnlyCountsArrivalsInTheWindow() {
+        SimulationResult result = new CheckoutSimulation().addCashiers(regular, 1)
+                .setEvaluationWindow(LocalTime.NOON.plusSeconds(5), LocalTime.NOON.plusSeconds(11)).simulate(supermarket);
+
+        assertEquals(2, result.getNumberOfCustomers());
+        assertEquals(15, result.getMedianWait());
+        assertEquals(22, result.getMaxWait());
+        assertThat(result.getUtilisation(), closeTo(1.0, 0.0001));
+        assertEquals(0, customer1.getActualWaitingTime()); // Still simulated, the first customer keeps the cashier busy.
+        assertEquals(22, customer3.getActualWaitingTime());
+    }
+
+    @Test
+    void t065_staffingSweepEqualsSeparateRuns() {
+        CheckoutWorkload workload = new CheckoutWorkload(supermarket);
+        List<CheckoutSimulation> scenarios = new ArrayList<>();
+        for (int cashiers = 1; cashiers <= 3; cashiers++) {
+            scenarios.add(new CheckoutSimulation().addCashiers(regular, cashiers));
+        }
+
+        SweepTable table = new StaffingSweep(workload, new ForkJoinPool(2)).run(scenarios);
+
+        assertEquals(3, table.size());
+        assertEquals("2x regular", table.getScenario(1));
+        for (int row = 0; row < table.size(); row++) {
+            assertEquals(scenarios.get(row).run(workload).toString(), table.getResult(row).toString());
+        }
+        assertEquals(2, table.findFirst(result -> result.getMaxWait() == 0)); // The third customer arrives while two are busy.
+        assertEquals(-1, table.findFirst(result -> result.getNumberOfCustomers() > 3));
+        assertEquals(4, table.toString().split("\n").length);
+    }
+}
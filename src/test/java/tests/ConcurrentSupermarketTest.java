@@ -0,0 +1,126 @@
+package tests;
+
+import model.ConcurrentSupermarket;
+import model.Customer;
+import model.Product;
+import model.Supermarket;
+import model.SupermarketStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import utilities.SupermarketStreamLoader;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestMethodOrder(MethodOrderer.Alphanumeric.class)
+class ConcurrentSupermarketTest {
+    private static final int TILLS = 8;
+
+    private Supermarket supermarket;
+    private List<Customer> arrivals;
+
+    @BeforeEach
+    void setup() {
+        supermarket = new SupermarketStreamLoader("src/main/resources/jambiBigJson.txt").load();
+        Product[] products = supermarket.getProducts().toArray(new Product[0]);
+        for (int i = 0; i < 20000; i++) {
+            Customer customer = new Customer(LocalTime.of(15, 0).plusSeconds(i), "2000A" + (char) ('A' + i % 26));
+            customer.addToCart(products[i % products.length], 1 + i % 3);
+            customer.addToCart(products[(i * 7 + 3) % products.length], 1 + i % 5);
+            supermarket.getCustomers().add(customer);
+        }
+        arrivals = new ArrayList<>(supermarket.getCustomers());
+    }
+
+    @Test
+    void t071_tillsAddCustomersWhileReadersQuery() throws InterruptedException {
+        ConcurrentSupermarket concurrent = new ConcurrentSupermarket("Jambi", LocalTime.NOON, LocalTime.of(15, 0), 4);
+        supermarket.getProducts().forEach(concurrent::addProduct);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> torn = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                SupermarketStatistics snapshot = concurrent.getStatistics();
+                long byZipcode = snapshot.getRevenueByZipcodeInCents().values().stream().mapToLong(Long::longValue).sum();
+                if (byZipcode != snapshot.getTotalRevenueInCents()) {
+                    torn.set(byZipcode + " != " + snapshot.getTotalRevenueInCents());
+                }
+            }
+        });
+        reader.start();
+        List<Thread> tills = new ArrayList<>();
+        for (int till = 0; till < TILLS; till++) {
+            final int first = till;
+            Thread thread = new Thread(() -> {
+                for (int i = first; i < arrivals.size(); i += TILLS) {
+                    concurrent.addCustomer(arrivals.get(i));
+                    concurrent.addCustomer(arrivals.get(arrivals.size() - 1 - i)); // Duplicates of other tills are dropped.
+                }
+            });
+            tills.add(thread);
+            thread.start();
+        }
+        for (Thread thread : tills) {
+            thread.join();
+        }
+        done.set(true);
+        reader.join();
+
+        assertNull(torn.get(), "Snapshots should never be torn");
+        SupermarketStatistics expected = supermarket.getStatistics();
+        SupermarketStatistics actual = concurrent.getStatistics();
+        assertEquals(arrivals.size(), concurrent.getNumberOfCustomers());
+        assertEquals(arrivals, new ArrayList<>(concurrent.getCustomers()));
+        assertEquals(expected.getTotalRevenueInCents(), concurrent.findTotalRevenueInCents());
+        assertEquals(expected.getTotalNumberOfItems(), concurrent.getTotalNumberOfItems());
+        assertEquals(expected.getMostPayingCustomer(), actual.getMostPayingCustomer());
+        assertEquals(expected.getNumberOfProductsBought(), actual.getNumberOfProductsBought());
+        assertEquals(expected.getNumberOfCustomersPerProduct(), actual.getNumberOfCustomersPerProduct());
+        assertEquals(expected.getNumberOfProductsByZipcode(), actual.getNumberOfProductsByZipcode());
+        assertEquals(expected.getRevenueByZipcode(), concurrent.getRevenueByZipcode());
+        assertEquals(expected.getMostPopularProducts(), concurrent.findMostPopularProducts());
+        assertEquals(expected.getMostBoughtProductByZipcode(), concurrent.findMostBoughtProductByZipcode());
+    }
+
+    @Test
+    void t072_firstProductAndCustomerWin() {
+        ConcurrentSupermarket concurrent = new ConcurrentSupermarket("Jambi", LocalTime.NOON, LocalTime.of(15, 0));
+        assertTrue(concurrent.addProduct(new Product("A001", "Any-1", 1.0)));
+        assertFalse(concurrent.addProduct(new Product("A001", "Other", 2.0)));
+        assertEquals("Any-1", concurrent.getProducts().iterator().next().getDescription());
+
+        assertTrue(concurrent.addCustomer(new Customer(LocalTime.NOON, "1000AA")));
+        assertFalse(concurrent.addCustomer(new Customer(LocalTime.NOON, "1000AB")));
+        assertEquals(1, concurrent.getNumberOfCustomers());
+        assertEquals(0.0, concurrent.findAverageRevenue(), 0.001);
+    }
+
+    @Test
+    void t073_statisticsAreOnlyCombinedAgainAfterNewCustomers() {
+        ConcurrentSupermarket concurrent = new ConcurrentSupermarket("Jambi", LocalTime.NOON, LocalTime.of(15, 0), 4);
+        concurrent.addCustomer(arrivals.get(0));
+        SupermarketStatistics first = concurrent.getStatistics();
+        assertSame(first, concurrent.getStatistics());
+
+        concurrent.addCustomer(arrivals.get(1));
+        SupermarketStatistics second = concurrent.getStatistics();
+        assertNotSame(first, second);
+        assertEquals(2, second.getNumberOfCustomers());
+        assertSame(second, concurrent.getStatistics());
+        concurrent.addCustomer(arrivals.get(1)); // A duplicate isn't added, so nothing is combined again.
+        assertSame(second, concurrent.getStatistics());
+    }
+}
@@ -2,7 +2,10 @@ package tests;//import com.sun.org.apache.xerces.internal.util.PropertyState;
 
 import model.Customer;
 import model.Product;
+import model.Supermarket;
 import org.junit.jupiter.api.*;
+import utilities.SupermarketBuilder;
+import utilities.SupermarketStreamLoader;
 
 import java.time.LocalTime;
 import java.util.Map;
@@ -49,6 +52,17 @@ class CustomerTest {
         Assertions.assertTrue(this.customer0.getItemsCart() instanceof Map);
     }
 
+    @Test
+    void t016_customerCartHoldsEveryProductOnce() {
+        Assertions.assertEquals(3, this.customer9.getCartSize());
+        Assertions.assertEquals(Map.of(prod1, 5, prod2, 3, prod3, 4), this.customer9.getItemsCart());
+        Assertions.assertEquals(prod3, this.customer9.getCartProduct(2));
+        Assertions.assertEquals(4, this.customer9.getCartQuantity(2));
+        this.customer9.addToCart(this.prod1, 1);
+        Assertions.assertEquals(6, this.customer9.getItemsCart().get(prod1), "Map view should follow addToCart");
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> this.customer9.getItemsCart().put(prod1, 1));
+    }
+
     @Test
     void t021_customerCalculatesNumberOfItems() {
         Assertions.assertEquals(0, this.customer0.getNumberOfItems());
@@ -64,4 +78,34 @@ class CustomerTest {
         Assertions.assertEquals(4.0, this.customer2.calculateTotalBill());
         Assertions.assertEquals(23.0, this.customer9.calculateTotalBill());
     }
-}
\ No newline at end of file
+
+    @Test
+    void t042_customerTotalsFollowTheCartAfterLoading() {
+        Customer.setCheckingTotals(true); // Every read of the totals below recounts the cart as well.
+        try {
+            this.customer9.addToCart(this.prod2, 2);
+            Assertions.assertEquals(14, this.customer9.getNumberOfItems());
+            Assertions.assertEquals(2700, this.customer9.calculateTotalBillInCents());
+
+            String filename = "src/main/resources/jambi5Json.txt";
+            for (Supermarket supermarket : new Supermarket[] {new SupermarketStreamLoader(filename).load(),
+                    new SupermarketBuilder(filename).initializeSupermarket().addProducts().addCustomers().create()}) {
+                long revenue = 0;
+                for (Customer customer : supermarket.getCustomers()) {
+                    int items = 0;
+                    long bill = 0;
+                    for (int i = 0; i < customer.getCartSize(); i++) {
+                        items += customer.getCartQuantity(i);
+                        bill += customer.getCartProduct(i).getPriceInCents() * customer.getCartQuantity(i);
+                    }
+                    Assertions.assertEquals(items, customer.getNumberOfItems());
+                    Assertions.assertEquals(bill, customer.calculateTotalBillInCents());
+                    revenue += bill;
+                }
+                Assertions.assertEquals(revenue, supermarket.findTotalRevenueInCents());
+            }
+        } finally {
+            Customer.setCheckingTotals(false);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package tests;
+
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import metrics.MetricsReporter;
+import metrics.Timer;
+import model.Supermarket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import utilities.ParallelSupermarketLoader;
+import utilities.SupermarketBuilder;
+import utilities.SupermarketStreamLoader;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestMethodOrder(MethodOrderer.Alphanumeric.class)
+class MetricsTest {
+    private static final String FILE = "src/main/resources/jambi5Json.txt";
+
+    @BeforeEach
+    void setup() {
+        Metrics.setEnabled(true);
+        Metrics.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    void t111_loadersCountRecordsBytesAndFailures() throws Exception {
+        Supermarket supermarket = new SupermarketStreamLoader(FILE).load();
+        int customers = supermarket.getCustomers().size();
+        assertEquals(customers, Metrics.counter("loader.stream.records").getCount());
+        assertEquals(Files.size(Path.of(FILE)), Metrics.counter("loader.stream.bytes").getCount());
+        assertEquals(1, Metrics.timer("loader.stream").getHistogram().getCount());
+
+        new ParallelSupermarketLoader(FILE).load();
+        assertEquals(customers, Metrics.counter("loader.parallel.records").getCount());
+
+        new SupermarketBuilder(FILE).initializeSupermarket().addProducts().addCustomers().create();
+        assertEquals(customers, Metrics.counter("loader.builder.addCustomers.records").getCount());
+
+        new SupermarketStreamLoader("src/main/resources/missing.txt").load();
+        assertEquals(1, Metrics.counter("loader.stream.failures").getCount());
+    }
+
+    @Test
+    void t112_queriesAreTimedAndCachesCountHitsAndMisses() {
+        Supermarket supermarket = new SupermarketStreamLoader(FILE).load();
+        supermarket.findTotalRevenue();
+        supermarket.findTotalRevenue();
+        supermarket.findNumberOfProductsBought();
+
+        assertEquals(2, Metrics.timer("query.findTotalRevenue").getHistogram().getCount());
+        assertEquals(1, Metrics.cache("cache.statistics").getMisses());
+        assertEquals(2, Metrics.cache("cache.statistics").getHits());
+        assertEquals(2.0 / 3, Metrics.cache("cache.statistics").getHitRate(), 1e-9);
+    }
+
+    @Test
+    void t113_histogramPercentilesStayWithinOnePercent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000, histogram.getMaxNanos());
+        assertEquals(50_000_000, histogram.getPercentileNanos(50), 50_000_000 / 100.0);
+        assertEquals(99_000_000, histogram.getPercentileNanos(99), 99_000_000 / 100.0);
+        assertEquals(100_000_000, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    void t114_disabledMetricsRecordNothing() {
+        Metrics.setEnabled(false);
+        Timer timer = Metrics.timer("test.disabled");
+        timer.stop(timer.start());
+        Metrics.counter("test.disabled.records").add(10);
+        new SupermarketStreamLoader(FILE).load().findTotalRevenue();
+
+        assertEquals(0, timer.getHistogram().getCount());
+        assertEquals(0, Metrics.counter("test.disabled.records").getCount());
+        assertEquals(0, Metrics.counter("loader.stream.records").getCount());
+        assertEquals(0, Metrics.cache("cache.statistics").getMisses());
+    }
+
+    @Test
+    void t115_metricsAreExportedOverJmxTextAndJson() throws Exception {
+        new SupermarketStreamLoader(FILE).load();
+
+        ObjectName name = Metrics.registerMBean();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(Metrics.counter("loader.stream.records").getCount(), server.getAttribute(name, "loader.stream.records"));
+        assertEquals(true, server.getAttribute(name, "Enabled"));
+
+        assertTrue(Metrics.toText().contains("loader.stream.records " + Metrics.counter("loader.stream.records").getCount() + "\n"));
+        assertTrue(Metrics.toText().contains("loader.stream.recordsPerSecond "));
+        String json = Metrics.toJson();
+        assertTrue(json.startsWith("{") && json.endsWith("}"));
+        assertTrue(json.contains("\"loader.stream.p99Nanos\":"));
+
+        List<String> dumps = new ArrayList<>();
+        try (MetricsReporter reporter = new MetricsReporter(dumps::add, true)) {
+            reporter.report();
+        }
+        assertEquals(1, dumps.size());
+        assertTrue(dumps.get(0).contains("\"loader.stream.count\":1"));
+    }
+}
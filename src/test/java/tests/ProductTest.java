@@ -1,6 +1,9 @@
 package tests;
 
+import model.Customer;
+import model.Money;
 import model.Product;
+import model.ProductCatalog;
 import model.Supermarket;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.MethodOrderer;
@@ -49,4 +52,56 @@ class ProductTest {
         assertEquals(5, supermarket.getProducts().size(),
                 "A duplicate product code should not have been added to the set");
     }
-}
\ No newline at end of file
+
+    @Test
+    void t014_pricesAreExactInCents() {
+        assertEquals(425, new Product("ABC", "XXX", 4.25).getPriceInCents());
+        assertEquals(126, Product.ofCents("ABC", "XXX", 126).getPriceInCents());
+        assertEquals(1.26, Product.ofCents("ABC", "XXX", 126).getPrice());
+        assertEquals(425, Money.parseCents("4.25"));
+        assertEquals(50, Money.parseCents("0.5"));
+        assertEquals(700, Money.parseCents("7"));
+        assertEquals(101, Money.parseCents("1.005"));
+        assertEquals(-135, Money.parseCents("-1.35"));
+        assertEquals(120, Money.parseCents("1.2e0"));
+        assertEquals(101, Money.toCents(1.005));
+
+        Supermarket supermarket = new SupermarketBuilder("src/main/resources/jambi5Json.txt").initializeSupermarket().addProducts().addCustomers().create();
+        for (Product product : supermarket.getProducts()) { // Products read by Gson get their cents from the constructor as well.
+            assertEquals(Money.toCents(product.getPrice()), product.getPriceInCents(), product.getCode());
+        }
+    }
+
+    @Test
+    void t015_catalogFindsProductsByCodeAndKeepsTheFirstInstance() {
+        ProductCatalog catalog = new ProductCatalog();
+        Product first = new Product("ABC", "XXX", 1.0);
+        assertEquals(0, catalog.register(first));
+        assertEquals(1, catalog.register(new Product("DEF", "XXX", 1.0)));
+        assertEquals(0, catalog.register(new Product("ABC", "YYY", 2.0)));
+        assertSame(first, catalog.getProduct("ABC"));
+        assertSame(first, catalog.intern(new Product("ABC", "ZZZ", 3.0)));
+        assertEquals(1, catalog.getId("DEF"));
+        assertEquals(-1, catalog.getId("GHI"));
+        assertNull(catalog.getProduct("GHI"));
+
+        ProductCatalog other = new ProductCatalog(); // The same instance in a second catalog gets that catalog's id.
+        other.register(new Product("DEF", "XXX", 1.0));
+        assertEquals(1, other.register(first));
+        assertEquals(1, other.getId(first));
+        assertEquals(0, catalog.getId(first));
+    }
+
+    @Test
+    void t016_loadedCartsShareTheProductInstances() {
+        Supermarket supermarket = new SupermarketBuilder("src/main/resources/jambi5Json.txt").initializeSupermarket().addProducts().addCustomers().create();
+        for (Customer customer : supermarket.getCustomers()) {
+            for (Product product : customer.getItemsCart().keySet()) {
+                assertSame(supermarket.getProduct(product.getCode()), product);
+            }
+        }
+        for (Product product : supermarket.getProducts()) {
+            assertSame(product, supermarket.getProduct(product.getCode()));
+        }
+    }
+}
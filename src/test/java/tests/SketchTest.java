@@ -0,0 +1,103 @@
+package tests;
+
+import model.Customer;
+import model.Product;
+import model.Supermarket;
+import model.SupermarketStatistics;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import sketch.ApproximateAnalytics;
+import sketch.CountMinSketch;
+import sketch.HyperLogLog;
+import sketch.SpaceSaving;
+import utilities.SupermarketStreamLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestMethodOrder(MethodOrderer.Alphanumeric.class)
+class SketchTest {
+
+    @Test
+    void t091_countMinIsNeverTooLowAndWithinItsBound() {
+        CountMinSketch sketch = new CountMinSketch(0.001, 0.01);
+        long[] counts = new long[5000];
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            int key = (int) Math.min(counts.length - 1, Math.abs(random.nextGaussian()) * 500);
+            counts[key]++;
+            sketch.add("key" + key, 1);
+        }
+        int tooHigh = 0;
+        for (int key = 0; key < counts.length; key++) {
+            long estimate = sketch.estimate("key" + key);
+            assertTrue(estimate >= counts[key]);
+            if (estimate > counts[key] + 0.001 * sketch.getTotalCount()) {
+                tooHigh++;
+            }
+        }
+        assertTrue(tooHigh <= 0.01 * counts.length, tooHigh + " estimates outside the bound"); // Allowed for a delta of 1%.
+    }
+
+    @Test
+    void t092_hyperLogLogEstimatesAndMergesDistinctKeys() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        for (int i = 0; i < 100000; i++) {
+            first.add("zip" + i);
+            second.add("zip" + (i + 50000));
+        }
+        assertEquals(100000, first.estimate(), 100000 * 0.05);
+        assertEquals(150000, first.merge(second).estimate(), 150000 * 0.05);
+        HyperLogLog few = new HyperLogLog(HyperLogLog.precisionFor(0.02));
+        for (int i = 0; i < 50; i++) {
+            few.add("zip" + i % 25);
+        }
+        assertEquals(25, few.estimate());
+    }
+
+    @Test
+    void t093_spaceSavingKeepsTheHeavyHitters() {
+        SpaceSaving<String> first = new SpaceSaving<>(10);
+        SpaceSaving<String> second = new SpaceSaving<>(10);
+        for (int i = 0; i < 10000; i++) {
+            first.add(i % 3 == 0 ? "heavy" : "light" + i, 1);
+            second.add(i % 4 == 0 ? "heavy" : "other" + i, 1);
+        }
+        assertEquals("heavy", first.top(1).get(0));
+        assertTrue(first.estimate("heavy") >= 3334 && first.estimate("heavy") - first.getError("heavy") <= 3334);
+        first.merge(second);
+        assertEquals("heavy", first.top(1).get(0));
+        assertTrue(first.estimate("heavy") >= 3334 + 2500);
+        assertEquals(20000, first.getTotalCount());
+    }
+
+    @Test
+    void t094_approximateAnalyticsMatchTheExactStatistics() {
+        Supermarket supermarket = new SupermarketStreamLoader("src/main/resources/jambiBigJson.txt").load();
+        SupermarketStatistics exact = supermarket.getStatistics();
+        List<Customer> customers = new ArrayList<>(supermarket.getCustomers());
+        ApproximateAnalytics store1 = new ApproximateAnalytics();
+        ApproximateAnalytics store2 = new ApproximateAnalytics();
+        store1.addAll(customers.subList(0, customers.size() / 2));
+        store2.addAll(customers.subList(customers.size() / 2, customers.size()));
+        ApproximateAnalytics chain = store1.merge(store2);
+
+        assertEquals(customers.size(), chain.getNumberOfCustomers());
+        assertEquals(exact.getMostPopularProducts(), chain.findMostPopularProducts());
+        assertEquals(exact.getMostBoughtProductByZipcode().size(), chain.estimateNumberOfZipcodes(), 2);
+        for (Map.Entry<String, Product> entry : exact.getMostBoughtProductByZipcode().entrySet()) {
+            assertEquals(entry.getValue(), chain.estimateMostBoughtProduct(entry.getKey()), entry.getKey());
+        }
+        exact.getZipcodesPerProduct().forEach((product, zipCodes) ->
+                assertEquals(zipCodes.size(), chain.estimateNumberOfZipcodes(product), zipCodes.size() * 0.1 + 1));
+        exact.getNumberOfCustomersPerProduct().forEach((product, count) ->
+                assertEquals((long) count, chain.estimateNumberOfCustomers(product)));
+    }
+}
@@ -0,0 +1,81 @@
+package tests;
+
+import model.Customer;
+import model.Product;
+import model.SlidingWindowMetrics;
+import model.Supermarket;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import utilities.SupermarketStreamLoader;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestMethodOrder(MethodOrderer.Alphanumeric.class)
+class SlidingWindowMetricsTest {
+
+    private final Product product = new Product("A001", "Any-1", 1.5);
+
+    private Customer customer(String queuedAt, int amount) {
+        Customer customer = new Customer(LocalTime.parse(queuedAt), "1000AA");
+        customer.addToCart(product, amount);
+        return customer;
+    }
+
+    @Test
+    void t081_windowsOnlyHoldTheLastMinutes() {
+        SlidingWindowMetrics metrics = new SlidingWindowMetrics(1, 5);
+        metrics.add(customer("12:00:00", 1));
+        metrics.add(customer("12:00:30", 2));
+        assertEquals(2, metrics.getNumberOfCustomers(1));
+        assertEquals(4.5, metrics.getRevenue(1), 0.001);
+
+        metrics.advanceTo(LocalTime.parse("12:01:00"));
+        assertEquals(1, metrics.getNumberOfCustomers(1));
+        assertEquals(2, metrics.getNumberOfItems(1));
+        assertEquals(2, metrics.getNumberOfCustomers(5));
+
+        metrics.add(customer("12:00:45", 4)); // Late, but still in both windows.
+        assertEquals(2, metrics.getNumberOfCustomers(1));
+        assertEquals(LocalTime.parse("12:01:00"), metrics.getCurrentTime());
+
+        metrics.advanceTo(LocalTime.parse("12:05:40"));
+        assertEquals(0, metrics.getNumberOfCustomers(1));
+        assertEquals(1, metrics.getNumberOfCustomers(5));
+        metrics.advanceTo(LocalTime.parse("15:00:00"));
+        assertEquals(0, metrics.getRevenueInCents(5));
+        assertThrows(IllegalArgumentException.class, () -> metrics.getRevenue(15));
+    }
+
+    @Test
+    void t082_windowsEqualACountOverAllCustomers() {
+        Supermarket supermarket = new SupermarketStreamLoader("src/main/resources/jambiBigJson.txt").load();
+        SlidingWindowMetrics metrics = new SlidingWindowMetrics();
+        List<Customer> arrived = new ArrayList<>();
+        for (Customer customer : supermarket.getCustomers()) {
+            metrics.add(customer);
+            arrived.add(customer);
+            int now = customer.getQueuedAt().toSecondOfDay();
+            for (int minutes : new int[]{5, 15, 60}) {
+                long revenue = 0;
+                long items = 0;
+                int customers = 0;
+                for (Customer earlier : arrived) {
+                    if (earlier.getQueuedAt().toSecondOfDay() > now - minutes * 60) {
+                        revenue += earlier.calculateTotalBillInCents();
+                        items += earlier.getNumberOfItems();
+                        customers++;
+                    }
+                }
+                assertEquals(revenue, metrics.getRevenueInCents(minutes));
+                assertEquals(items, metrics.getNumberOfItems(minutes));
+                assertEquals(customers, metrics.getNumberOfCustomers(minutes));
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package tests;
+
+import model.Product;
+import model.Supermarket;
+import model.SupermarketChain;
+import model.SupermarketStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.io.TempDir;
+import utilities.SupermarketChainLoader;
+import utilities.SupermarketStreamLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestMethodOrder(MethodOrderer.Alphanumeric.class)
+class SupermarketChainTest {
+    private static final List<String> FILES = List.of("src/main/resources/jambi1Json.txt", "src/main/resources/jambi2Json.txt",
+            "src/main/resources/jambi5Json.txt", "src/main/resources/jambiBigJson.txt");
+
+    private List<SupermarketStatistics> stores;
+
+    @BeforeEach
+    void setup() {
+        stores = new ArrayList<>();
+        for (String file : FILES) {
+            stores.add(new SupermarketStreamLoader(file).load().getStatistics());
+        }
+    }
+
+    @Test
+    void t101_chainStatisticsFollowAddedAndRemovedStores() {
+        SupermarketChain chain = new SupermarketChain();
+        chain.addStore("Jambi Noord", stores.get(0));
+        chain.addStore("Jambi Zuid", stores.get(2));
+        assertEquals(stores.get(0).getTotalRevenueInCents() + stores.get(2).getTotalRevenueInCents(), chain.findTotalRevenueInCents());
+
+        chain.addStore("Jambi Oost", stores.get(3)); // Merged into the chain statistics that were already there.
+        SupermarketStatistics expected = SupermarketStatistics.combine(List.of(stores.get(0), stores.get(2), stores.get(3)));
+        assertSameStatistics(expected, chain.getStatistics());
+        assertEquals(List.of("Jambi Noord", "Jambi Zuid", "Jambi Oost"), new ArrayList<>(chain.getRevenueByStoreInCents().keySet()));
+
+        assertTrue(chain.removeStore("Jambi Zuid"));
+        assertFalse(chain.removeStore("Jambi Zuid"));
+        assertSameStatistics(SupermarketStatistics.combine(List.of(stores.get(0), stores.get(3))), chain.getStatistics());
+
+        chain.addStore("Jambi Noord", stores.get(1)); // Another day of the same store.
+        assertEquals(2, chain.getNumberOfStores());
+        assertEquals(stores.get(0).getNumberOfCustomers() + stores.get(1).getNumberOfCustomers(),
+                chain.getStoreStatistics("Jambi Noord").getNumberOfCustomers());
+
+        List<Product> top = chain.findTopProducts(3);
+        assertEquals(Math.min(3, chain.findNumberOfProductsBought().size()), top.size());
+        assertTrue(chain.findMostPopularProducts().contains(top.get(0)));
+    }
+
+    @Test
+    void t102_loaderAddsEveryFileToTheChain() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        SupermarketChain chain = new SupermarketChainLoader(FILES, pool).load();
+        pool.shutdown();
+
+        assertEquals(1, chain.getNumberOfStores(), "All files are of the store Jambi");
+        assertSameStatistics(SupermarketStatistics.combine(stores), chain.getStatistics());
+
+        Map<String, Long> revenueByZipcode = new TreeMap<>();
+        for (SupermarketStatistics store : stores) {
+            store.getRevenueByZipcodeInCents().forEach((zipCode, revenue) -> revenueByZipcode.merge(zipCode, revenue, Long::sum));
+        }
+        assertEquals(revenueByZipcode, chain.getRevenueByZipcodeInCents());
+
+        Supermarket extra = new SupermarketStreamLoader(FILES.get(2)).load();
+        new SupermarketChainLoader(List.of(FILES.get(0), "src/main/resources/missing.txt")).load(chain);
+        chain.addStore(extra);
+        assertEquals(SupermarketStatistics.combine(stores).getNumberOfCustomers() + stores.get(0).getNumberOfCustomers()
+                + stores.get(2).getNumberOfCustomers(), chain.getStatistics().getNumberOfCustomers());
+    }
+
+    @Test
+    void t103_truncatedFilesAreLeftOut(@TempDir Path directory) throws IOException {
+        String content = Files.readString(Path.of(FILES.get(2)));
+        Path truncated = directory.resolve("truncated.txt");
+        Files.writeString(truncated, content.substring(0, content.length() - 40)); // Ends in the middle of the last customer.
+
+        SupermarketChain chain = new SupermarketChainLoader(List.of(FILES.get(0), truncated.toString())).load();
+        assertEquals(1, chain.getNumberOfStores());
+        assertSameStatistics(stores.get(0), chain.getStatistics());
+    }
+
+    private void assertSameStatistics(SupermarketStatistics expected, SupermarketStatistics actual) {
+        assertEquals(expected.getNumberOfCustomers(), actual.getNumberOfCustomers());
+        assertEquals(expected.getTotalNumberOfItems(), actual.getTotalNumberOfItems());
+        assertEquals(expected.getTotalRevenueInCents(), actual.getTotalRevenueInCents());
+        assertEquals(expected.getRevenueByZipcodeInCents(), actual.getRevenueByZipcodeInCents());
+        assertEquals(expected.getNumberOfProductsBought(), actual.getNumberOfProductsBought());
+        assertEquals(expected.getNumberOfProductsByZipcode(), actual.getNumberOfProductsByZipcode());
+        assertEquals(expected.getMostPopularProducts(), actual.getMostPopularProducts());
+        assertEquals(expected.getMostPayingCustomer(), actual.getMostPayingCustomer());
+    }
+}
@@ -1,24 +1,48 @@
 package tests;
 
+import model.BillIndex;
+import model.Customer;
 import model.Product;
 import model.Supermarket;
+import model.SupermarketStatistics;
+import model.ZipCodeDictionary;
+import model.ZipCodeIndex;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.io.TempDir;
+import utilities.LazySupermarket;
+import utilities.OutOfCoreProcessor;
+import utilities.ParallelSupermarketLoader;
 import utilities.SupermarketBuilder;
+import utilities.SupermarketSnapshot;
+import utilities.SupermarketStreamLoader;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.number.IsCloseTo.closeTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @TestMethodOrder(MethodOrderer.Alphanumeric.class)
 class SupermarketTest {
@@ -48,6 +72,120 @@ class SupermarketTest {
         assertEquals(nItems, supermarket.getTotalNumberOfItems());
     }
 
+    @Test
+    void t034_streamLoaderLoadsTheSameAsBuilder() {
+        for (String file : new String[] {"jambi1Json.txt", "jambi2Json.txt", "jambi5Json.txt", "jambiBigJson.txt"}) {
+            String filename = "src/main/resources/" + file;
+            Supermarket expected = new SupermarketBuilder(filename).initializeSupermarket().addProducts().addCustomers().create();
+            Supermarket streamed = new SupermarketStreamLoader(filename).load();
+            assertEquals(expected.getProducts(), streamed.getProducts(), file);
+            assertEquals(expected.getCustomers().size(), streamed.getCustomers().size(), file);
+            assertEquals(expected.getTotalNumberOfItems(), streamed.getTotalNumberOfItems(), file);
+            assertEquals(expected.findTotalRevenue(), streamed.findTotalRevenue(), 0.0001, file);
+            assertEquals(expected.findNumberOfProductsByZipcode(), streamed.findNumberOfProductsByZipcode(), file);
+        }
+    }
+
+    @Test
+    void t035_streamLoaderResolvesCartProductsByCode() {
+        Supermarket streamed = new SupermarketStreamLoader("src/main/resources/jambi5Json.txt").load();
+        Product croissant = getProductByCode(streamed, "BRO001");
+        streamed.getCustomers().forEach(customer -> customer.getItemsCart().keySet().stream()
+                .filter(product -> product.equals(croissant))
+                .forEach(product -> assertSame(croissant, product, "Cart products should be the loaded product instance")));
+    }
+
+    @Test
+    void t036_parallelLoaderLoadsTheSameAsBuilder() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (String file : new String[] {"jambi1Json.txt", "jambi2Json.txt", "jambi5Json.txt", "jambiBigJson.txt"}) {
+            String filename = "src/main/resources/" + file;
+            Supermarket expected = new SupermarketBuilder(filename).initializeSupermarket().addProducts().addCustomers().create();
+            Supermarket parallel = new ParallelSupermarketLoader(filename, pool).setMinChunkSize(512).load();
+            assertEquals(expected.getProducts(), parallel.getProducts(), file);
+            assertEquals(describeCustomers(expected), describeCustomers(parallel), file);
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    void t037_snapshotReloadsTheSameSupermarket(@TempDir Path directory) throws IOException {
+        for (String file : List.of("jambi1Json.txt", "jambi2Json.txt", "jambi5Json.txt", "jambiBigJson.txt")) {
+            Supermarket expected = new SupermarketStreamLoader("src/main/resources/" + file).load();
+            expected.getCustomers().iterator().next().setActualWaitingTime(42);
+            String snapshotFile = directory.resolve(file + ".snapshot").toString();
+            assertTrue(new SupermarketSnapshot(snapshotFile).write(expected));
+            Supermarket reloaded = new SupermarketSnapshot(snapshotFile).load();
+
+            assertEquals(expected.getName(), reloaded.getName());
+            assertEquals(expected.getOpenTime(), reloaded.getOpenTime());
+            assertEquals(expected.getClosingTime(), reloaded.getClosingTime());
+            assertEquals(expected.getProducts(), reloaded.getProducts());
+            assertEquals(describeCustomers(expected), describeCustomers(reloaded), file);
+            assertEquals(42, reloaded.getCustomers().iterator().next().getActualWaitingTime());
+            assertEquals(expected.findTotalRevenueInCents(), reloaded.findTotalRevenueInCents());
+            assertEquals(expected.getRevenueByZipcode(), reloaded.getRevenueByZipcode());
+        }
+        long textSize = Files.size(Path.of("src/main/resources/jambiBigJson.txt")); // Small files are mostly header.
+        assertTrue(Files.size(directory.resolve("jambiBigJson.txt.snapshot")) * 10 < textSize);
+        assertNull(new SupermarketSnapshot("src/main/resources/jambi1Json.txt").load());
+    }
+
+    @Test
+    void t038_lazySupermarketAnswersLikeTheLoadedOne() {
+        for (String file : List.of("jambi1Json.txt", "jambi2Json.txt", "jambi5Json.txt", "jambiBigJson.txt")) {
+            Supermarket expected = new SupermarketStreamLoader("src/main/resources/" + file).load();
+            LazySupermarket lazy = LazySupermarket.open("src/main/resources/" + file);
+
+            assertEquals(expected.getProducts(), lazy.getSupermarket().getProducts(), file);
+            assertEquals(expected.getCustomers().size(), lazy.size(), file);
+            assertEquals(expected.findTotalRevenueInCents(), lazy.findTotalRevenueInCents(), file);
+            assertEquals(expected.getTotalNumberOfItems(), lazy.getTotalNumberOfItems(), file);
+            assertEquals(expected.getRevenueByZipcodeInCents(), lazy.getRevenueByZipcodeInCents(), file);
+            assertEquals(expected.getRevenueByZipcode(), lazy.getRevenueByZipcode(), file);
+            Customer mostPaying = lazy.findMostPayingCustomer();
+            assertEquals(expected.findMostPayingCustomer(), mostPaying, file);
+            assertEquals(expected.findMostPayingCustomer().getItemsCart(), mostPaying.getItemsCart(), file);
+            assertEquals(describeCustomers(expected), describeCustomers(lazy.loadCustomers()), file);
+        }
+        assertNull(LazySupermarket.open("src/main/resources/missing.txt"));
+    }
+
+    @Test
+    void t039_outOfCoreProcessorAggregatesLikeTheLoadedSupermarket(@TempDir Path directory) throws IOException {
+        for (String file : List.of("jambi1Json.txt", "jambi2Json.txt", "jambi5Json.txt", "jambiBigJson.txt")) {
+            Supermarket expected = new SupermarketStreamLoader("src/main/resources/" + file).load();
+            OutOfCoreProcessor processor = new OutOfCoreProcessor("src/main/resources/" + file).setBatchSize(3).setSpillDirectory(directory)
+                    .setDeduplicate(true); // The big file gives 84 runs, more than are merged at once.
+            Supermarket sorted = new Supermarket();
+            SupermarketStatistics statistics = processor.process(customer -> sorted.getCustomers().add(customer));
+
+            assertEquals(describeCustomers(expected), describeCustomers(sorted), file);
+            assertEquals(expected.getCustomers().size(), statistics.getNumberOfCustomers(), file);
+            assertEquals(expected.getTotalNumberOfItems(), statistics.getTotalNumberOfItems(), file);
+            assertEquals(expected.findTotalRevenueInCents(), statistics.getTotalRevenueInCents(), file);
+            assertEquals(expected.getRevenueByZipcodeInCents(), statistics.getRevenueByZipcodeInCents(), file);
+            assertEquals(expected.findNumberOfProductsBought(), statistics.getNumberOfProductsBought(), file);
+            assertEquals(expected.findMostPopularProducts(), statistics.getMostPopularProducts(), file);
+            assertEquals(expected.findMostPayingCustomer(), statistics.getMostPayingCustomer(), file);
+            assertEquals(expected.calculateRevenuePerInterval(15), processor.calculateRevenuePerInterval(15), file);
+
+            SupermarketStatistics unsorted = new OutOfCoreProcessor("src/main/resources/" + file).setBatchSize(3).setSpillDirectory(directory).process();
+            assertEquals(expected.getTotalNumberOfItems(), unsorted.getTotalNumberOfItems(), file); // These files have no duplicate queuedAt.
+            try (Stream<Path> runs = Files.list(directory)) {
+                assertEquals(0, runs.count(), "Runs should be deleted");
+            }
+        }
+    }
+
+    private List<String> describeCustomers(Supermarket supermarket) {
+        List<String> descriptions = new ArrayList<>();
+        for (Customer customer : supermarket.getCustomers()) {
+            descriptions.add(customer.getQueuedAt() + " " + customer.getZipCode() + " " + new TreeMap<>(customer.getItemsCart()));
+        }
+        return descriptions;
+    }
+
     @Test
     void t033_numberOfProductsByZipcodeIsCorrect() {
         // Get products from supermarket1 purchases
@@ -112,6 +250,19 @@ class SupermarketTest {
         assertEquals((LocalTime.parse("12:01:51")), supermarket5.findMostPayingCustomer().getQueuedAt(), "Customer should've queued at 12:01:51");
     }
 
+    @Test
+    void t044_topPayingCustomersAndBillPercentilesAreCorrect() {
+        List<Customer> topPaying = supermarket5.findTopPayingCustomers(2);
+        assertEquals(LocalTime.parse("12:01:51"), topPaying.get(0).getQueuedAt());
+        assertEquals(LocalTime.parse("12:00:28"), topPaying.get(1).getQueuedAt());
+        assertEquals(6, supermarket5.findTopPayingCustomers(10).size());
+        assertEquals(0.0, supermarket5.findBillPercentile(0), 0.001);
+        assertEquals(7.85, supermarket5.findBillPercentile(50), 0.001);
+        assertEquals(46.71, supermarket5.findBillPercentile(90), 0.001);
+        assertEquals(supermarket5.findHighestBill(), supermarket5.findBillPercentile(100), 0.001);
+        assertEquals(33.85, supermarket1.findBillPercentile(99), 0.001);
+    }
+
     @Test
     void t052_averageRevenueIsCorrect() {
         assertThat(supermarket1.findAverageRevenue(), is(closeTo(33.85, 0.001)));
@@ -155,4 +306,392 @@ class SupermarketTest {
         assertNull(supermarket5.findMostBoughtProductByZipcode().get("1016DK"));
     }
 
-}
\ No newline at end of file
+    @Test
+    void t056_statisticsAreReusedUntilCustomersChange() {
+        SupermarketStatistics statistics = supermarket5.getStatistics();
+        assertSame(statistics, supermarket5.getStatistics(), "Unchanged supermarket should reuse its statistics");
+        assertEquals(6, statistics.getNumberOfCustomers());
+
+        Customer customer = new Customer(LocalTime.parse("12:04:59"), "1016DK");
+        customer.addToCart(getProductByCode(supermarket5, "BRO001"), 100);
+        supermarket5.getCustomers().add(customer);
+
+        assertNotSame(statistics, supermarket5.getStatistics(), "Adding a customer should refresh the statistics");
+        assertEquals(7, supermarket5.getStatistics().getNumberOfCustomers());
+        assertEquals(customer, supermarket5.findMostPayingCustomer());
+        assertEquals(125, supermarket5.getTotalNumberOfItems());
+    }
+
+    @Test
+    void t057_revenueBetweenTimesIsCorrect() {
+        assertEquals(56.79 + 38.10 + 7.85, supermarket5.revenueBetween(LocalTime.parse("12:00:00"), LocalTime.parse("12:05:00")), 0.001);
+        assertEquals(10.08 + 31.75, supermarket5.revenueBetween(LocalTime.parse("12:00:18"), LocalTime.parse("12:00:32")), 0.001);
+        assertEquals(0.0, supermarket5.revenueBetween(LocalTime.parse("12:02:00"), LocalTime.parse("12:01:00")), 0.001);
+        Map<LocalTime, Double> perInterval = supermarket5.calculateRevenuePerInterval(1);
+        assertEquals(5, perInterval.size());
+        assertEquals(10.08 + 31.75 + 7.85 + 6.35, perInterval.get(LocalTime.parse("12:00")), 0.001);
+        assertEquals(46.71, perInterval.get(LocalTime.parse("12:01")), 0.001);
+        assertEquals(0.0, perInterval.get(LocalTime.parse("12:04")), 0.001);
+    }
+
+    @Test
+    void t058_columnarStoreGivesTheSameStatistics() {
+        for (Supermarket supermarket : List.of(supermarket1, supermarket2, supermarket5,
+                new SupermarketStreamLoader("src/main/resources/jambiBigJson.txt").load())) {
+            SupermarketStatistics expected = supermarket.getStatistics();
+            supermarket.useColumnarStore(true);
+            SupermarketStatistics columnar = supermarket.getStatistics();
+            assertNotSame(expected, columnar);
+            assertEquals(expected.getTotalNumberOfItems(), columnar.getTotalNumberOfItems());
+            assertEquals(expected.getTotalRevenue(), columnar.getTotalRevenue(), 0.001);
+            assertEquals(expected.getHighestBill(), columnar.getHighestBill(), 0.001);
+            assertSame(expected.getMostPayingCustomer(), columnar.getMostPayingCustomer());
+            assertEquals(expected.getNumberOfProductsBought(), columnar.getNumberOfProductsBought());
+            assertEquals(expected.getNumberOfProductsByZipcode(), columnar.getNumberOfProductsByZipcode());
+            assertEquals(expected.getZipcodesPerProduct(), columnar.getZipcodesPerProduct());
+            assertEquals(expected.getMostPopularProducts(), columnar.getMostPopularProducts());
+            assertEquals(expected.getMostBoughtProductByZipcode(), columnar.getMostBoughtProductByZipcode());
+            expected.getRevenueByZipcode().forEach((zipCode, revenue) ->
+                    assertEquals(revenue, columnar.getRevenueByZipcode().get(zipCode), 0.001));
+        }
+    }
+
+    @Test
+    void t059_parallelStatisticsAreTheSameAsSequential() {
+        Supermarket supermarket = new SupermarketStreamLoader("src/main/resources/jambiBigJson.txt").load();
+        for (int i = 0; i < 20000; i++) { // Enough customers to split the work over several tasks.
+            Customer customer = new Customer(LocalTime.of(15, 0).plusSeconds(i), "2000A" + (char) ('A' + i % 26));
+            customer.addToCart(getProductByCode(supermarket, "BRO001"), 1 + i % 3);
+            customer.addToCart(getProductByCode(supermarket, i % 2 == 0 ? "ZUI003" : "LEV001"), 1 + i % 5);
+            supermarket.getCustomers().add(customer);
+        }
+        SupermarketStatistics sequential = supermarket.getStatistics();
+        supermarket.setParallelism(4);
+        SupermarketStatistics parallel = supermarket.getStatistics();
+        supermarket.setParallelism(1);
+
+        assertNotSame(sequential, parallel);
+        assertEquals(sequential.getTotalRevenueInCents(), parallel.getTotalRevenueInCents());
+        assertEquals(sequential.getTotalNumberOfItems(), parallel.getTotalNumberOfItems());
+        assertSame(sequential.getMostPayingCustomer(), parallel.getMostPayingCustomer());
+        assertEquals(sequential.getNumberOfProductsBought(), parallel.getNumberOfProductsBought());
+        assertEquals(sequential.getNumberOfCustomersPerProduct(), parallel.getNumberOfCustomersPerProduct());
+        assertEquals(sequential.getNumberOfProductsByZipcode(), parallel.getNumberOfProductsByZipcode());
+        assertEquals(sequential.getRevenueByZipcodeInCents(), parallel.getRevenueByZipcodeInCents());
+        assertEquals(sequential.getMostPopularProducts(), parallel.getMostPopularProducts());
+        assertEquals(sequential.getMostBoughtProductByZipcode(), parallel.getMostBoughtProductByZipcode());
+    }
+
+    @Test
+    void t060_incrementalStatisticsFollowAddedCustomers() {
+        Supermarket live = new Supermarket("Live", LocalTime.parse("12:00:00"), LocalTime.parse("12:05:00"));
+        live.getProducts().addAll(supermarket5.getProducts());
+        live.useIncrementalStatistics(true);
+        List<Customer> arrivals = new ArrayList<>(supermarket5.getCustomers());
+        for (int i = arrivals.size() - 1; i >= 0; i--) { // Live customers don't have to come in queuedAt order.
+            live.addCustomer(arrivals.get(i));
+            assertEquals(arrivals.size() - i, live.getStatistics().getNumberOfCustomers());
+        }
+
+        for (int change = 0; change < 2; change++) {
+            SupermarketStatistics expected = supermarket5.getStatistics();
+            SupermarketStatistics incremental = live.getStatistics();
+            assertEquals(expected.getTotalRevenueInCents(), incremental.getTotalRevenueInCents());
+            assertEquals(expected.getTotalNumberOfItems(), incremental.getTotalNumberOfItems());
+            assertEquals(expected.getMostPayingCustomer(), incremental.getMostPayingCustomer());
+            assertEquals(expected.getNumberOfProductsBought(), incremental.getNumberOfProductsBought());
+            assertEquals(expected.getNumberOfCustomersPerProduct(), incremental.getNumberOfCustomersPerProduct());
+            assertEquals(expected.getNumberOfProductsByZipcode(), incremental.getNumberOfProductsByZipcode());
+            assertEquals(expected.getRevenueByZipcodeInCents(), incremental.getRevenueByZipcodeInCents());
+            assertEquals(expected.getMostBoughtProductByZipcode(), incremental.getMostBoughtProductByZipcode());
+            assertEquals(supermarket5.calculateRevenuePerInterval(1), live.calculateRevenuePerInterval(1));
+            assertEquals(supermarket5.revenueBetween(LocalTime.parse("12:00:18"), LocalTime.parse("12:00:32")),
+                    live.revenueBetween(LocalTime.parse("12:00:18"), LocalTime.parse("12:00:32")), 0.001);
+
+            Customer removed = supermarket5.findMostPayingCustomer(); // Removing rebuilds the running totals.
+            supermarket5.getCustomers().remove(removed);
+            live.getCustomers().remove(removed);
+        }
+    }
+
+    @Test
+    void t061_zipCodeIndexAnswersPrefixAndRangeQueries() {
+        Supermarket big = new SupermarketStreamLoader("src/main/resources/jambiBigJson.txt").load();
+        ZipCodeIndex index = big.getZipCodeIndex();
+        assertEquals(big.getRevenueByZipcode().size(), index.size());
+        assertSame(index, big.getZipCodeIndex());
+
+        for (String[] range : new String[][] {{"1017", "1017"}, {"1000", "1099"}, {"1015", "1016"}, {"1015C", "1015M"}, {"", ""}, {"2", "9"}}) {
+            long revenue = 0;
+            int customers = 0;
+            Map<Product, Integer> productsBought = new TreeMap<>();
+            for (Customer customer : big.getCustomers()) {
+                String zipCode = customer.getZipCode();
+                if (zipCode.compareTo(range[0]) >= 0 && zipCode.substring(0, Math.min(range[1].length(), 6)).compareTo(range[1]) <= 0) {
+                    revenue += customer.calculateTotalBillInCents();
+                    customers++;
+                    customer.getItemsCart().forEach((product, units) -> productsBought.merge(product, units, Integer::sum));
+                }
+            }
+            assertEquals(revenue, index.getRevenueInCents(range[0], range[1]), range[0] + "-" + range[1]);
+            assertEquals(customers, index.getNumberOfCustomers(range[0], range[1]), range[0] + "-" + range[1]);
+            assertEquals(productsBought, new TreeMap<>(index.getNumberOfProductsBought(range[0], range[1])), range[0] + "-" + range[1]);
+        }
+        assertEquals(index.getRevenueInCents("1017"), index.getRevenueInCents("1017", "1017"));
+        assertEquals(big.findTotalRevenueInCents(), index.getRevenueInCents(""));
+
+        assertEquals(1017 * 676 + 1, ZipCodeDictionary.encode("1017AB"));
+        assertEquals("1017AB", ZipCodeDictionary.decode(ZipCodeDictionary.encode("1017AB")));
+        assertEquals(-1, ZipCodeDictionary.encode("B-1000"));
+        List<Customer> sameZipCode = big.getCustomers().stream().filter(customer -> customer.getZipCode().equals("1015LI")).collect(Collectors.toList());
+        sameZipCode.forEach(customer -> assertSame(sameZipCode.get(0).getZipCode(), customer.getZipCode()));
+    }
+
+    @Test
+    void t062_queryResultsAreCachedUntilCustomersChange() {
+        Map<LocalTime, Double> perInterval = supermarket5.calculateRevenuePerInterval(1);
+        assertSame(perInterval, supermarket5.calculateRevenuePerInterval(1), "Unchanged supermarket should reuse the query result");
+        assertThrows(UnsupportedOperationException.class, () -> perInterval.put(LocalTime.NOON, 0.0));
+        List<Customer> topPaying = supermarket5.findTopPayingCustomers(2);
+        assertSame(topPaying, supermarket5.findTopPayingCustomers(2));
+        assertNotSame(topPaying, supermarket5.findTopPayingCustomers(3), "Other parameters are another query");
+
+        supermarket5.setOpenTime(LocalTime.parse("12:01")); // Not a new version, but part of the key.
+        assertEquals(4, supermarket5.calculateRevenuePerInterval(1).size());
+        supermarket5.setOpenTime(LocalTime.parse("12:00"));
+
+        Customer customer = new Customer(LocalTime.parse("12:04:59"), "1016DK");
+        customer.addToCart(getProductByCode(supermarket5, "BRO001"), 100);
+        supermarket5.getCustomers().add(customer);
+        Map<LocalTime, Double> refreshed = supermarket5.calculateRevenuePerInterval(1);
+        assertNotSame(perInterval, refreshed, "Adding a customer should refresh the query results");
+        assertEquals(perInterval.get(LocalTime.parse("12:04")) + customer.calculateTotalBill(), refreshed.get(LocalTime.parse("12:04")), 0.001);
+        assertEquals(customer, supermarket5.findTopPayingCustomers(2).get(0));
+
+        supermarket5.setQueryCacheSize(1); // Only the last result is kept.
+        Map<LocalTime, Double> perFiveMinutes = supermarket5.calculateRevenuePerInterval(5);
+        supermarket5.calculateRevenuePerInterval(1);
+        assertNotSame(perFiveMinutes, supermarket5.calculateRevenuePerInterval(5));
+        supermarket5.setQueryCacheSize(0);
+        assertNotSame(supermarket5.calculateRevenuePerInterval(5), supermarket5.calculateRevenuePerInterval(5));
+        assertThrows(IllegalArgumentException.class, () -> supermarket5.setQueryCacheSize(-1));
+    }
+
+    @Test
+    void t063_cartChangesAfterAddingRefreshTheResults() {
+        Supermarket shop = new Supermarket("Shop", LocalTime.parse("12:00:00"), LocalTime.parse("12:05:00"));
+        Product bread = getProductByCode(supermarket5, "BRO001");
+        shop.getProducts().add(bread);
+        Customer customer = new Customer(LocalTime.parse("12:01:00"), "1016DK");
+        shop.addCustomer(customer);
+        assertEquals(0.0, shop.findTotalRevenue(), 0.001);
+        assertEquals(0, shop.getTotalNumberOfItems());
+        assertTrue(shop.getRevenueByZipcode().containsKey("1016DK"));
+
+        customer.addToCart(bread, 2); // The cart changes after the customer was added.
+        assertEquals(bread.getPriceInCents() * 2, shop.findTotalRevenueInCents());
+        assertEquals(2, shop.getTotalNumberOfItems());
+        assertEquals(customer, shop.findMostPayingCustomer());
+        assertEquals(customer.calculateTotalBill(), shop.calculateRevenuePerInterval(1).get(LocalTime.parse("12:01")), 0.001);
+        assertEquals(customer.calculateTotalBill(), shop.findBillPercentile(100), 0.001);
+        assertEquals(bread.getPriceInCents() * 2, shop.getZipCodeIndex().getRevenueInCents("1016"));
+
+        shop.useIncrementalStatistics(true); // Running totals are rebuilt after a cart change.
+        customer.addToCart(bread, 1);
+        assertEquals(3, shop.getTotalNumberOfItems());
+        assertEquals(bread.getPriceInCents() * 3, shop.getStatistics().getRevenueByZipcodeInCents().get("1016DK"));
+        assertEquals(customer.calculateTotalBill(), shop.revenueBetween(LocalTime.parse("12:00:00"), LocalTime.parse("12:05:00")), 0.001);
+    }
+
+    @Test
+    void t064_productsThatAreOnlyInChangedCartsAreCounted() {
+        Customer customer = supermarket5.getCustomers().iterator().next();
+        Product unknown = new Product("B1", "Bag", 0.10);
+        customer.addToCart(unknown, 3); // Not in the catalog of the supermarket yet.
+
+        assertEquals(3, supermarket5.findNumberOfProductsBought().get(unknown));
+        assertEquals(3, supermarket5.findNumberOfProductsByZipcode().get(customer.getZipCode()).get(unknown));
+        assertEquals(3, supermarket5.getZipCodeIndex().getNumberOfProductsBought("").get(unknown));
+        supermarket5.setParallelism(2);
+        assertEquals(3, supermarket5.findNumberOfProductsBought().get(unknown));
+        supermarket5.useColumnarStore(true);
+        assertEquals(3, supermarket5.findNumberOfProductsBought().get(unknown));
+        supermarket5.setParallelism(1);
+    }
+
+    @Test
+    void t065_streamLoaderDoesNotReturnATruncatedFile(@TempDir Path directory) throws IOException {
+        String content = Files.readString(Path.of("src/main/resources/jambi5Json.txt"));
+        Path truncated = directory.resolve("truncated.txt");
+        Files.writeString(truncated, content.substring(0, content.length() - 40)); // Ends in the middle of the last customer.
+
+        List<Customer> streamed = new ArrayList<>();
+        assertNull(new SupermarketStreamLoader(truncated.toString()).load(streamed::add));
+        assertEquals(supermarket5.getCustomers().size() - 1, streamed.size());
+        assertNull(new SupermarketStreamLoader(truncated.toString()).load());
+    }
+
+    @Test
+    void t066_snapshotKeepsMissingNamesAndTimes(@TempDir Path directory) {
+        String snapshotFile = directory.resolve("empty.snapshot").toString();
+        assertTrue(new SupermarketSnapshot(snapshotFile).write(new Supermarket()));
+        Supermarket reloaded = new SupermarketSnapshot(snapshotFile).load();
+        assertNull(reloaded.getName());
+        assertNull(reloaded.getOpenTime());
+        assertNull(reloaded.getClosingTime());
+        assertEquals(0, reloaded.getCustomers().size());
+
+        Supermarket unnamed = new Supermarket();
+        Product bag = new Product("B1", null, 0.10);
+        unnamed.getProducts().add(bag);
+        Customer customer = new Customer(LocalTime.NOON, "1016DK");
+        customer.addToCart(bag, 2);
+        unnamed.addCustomer(customer);
+        assertTrue(new SupermarketSnapshot(snapshotFile).write(unnamed));
+        reloaded = new SupermarketSnapshot(snapshotFile).load();
+        assertNull(reloaded.getProduct("B1").getDescription());
+        assertEquals(10, reloaded.getProduct("B1").getPriceInCents());
+        assertEquals(20, reloaded.findTotalRevenueInCents());
+    }
+
+    @Test
+    void t067_lazySupermarketPricesCartOnlyProductsInFileOrder(@TempDir Path directory) throws IOException {
+        String header = "Supermarket\n{\"name\":\"Jambi\",\"openTime\":\"12:00:00\",\"closingTime\":\"12:05:00\"}\nProducts\nCustomers\n";
+        Path file = directory.resolve("cartOnly.txt");
+        Files.writeString(file, header // The later customer is first in the file, so its price is the one that counts.
+                + "{\"queuedAt\":\"12:03:00\",\"zipCode\":\"1015MF\",\"itemsCart\":[[{\"code\":\"X1\",\"description\":\"Extra\",\"price\":1.00},1]]}\n"
+                + "{\"queuedAt\":\"12:01:00\",\"zipCode\":\"1016DK\",\"itemsCart\":[[{\"code\":\"X1\",\"description\":\"Extra\",\"price\":2.00},3]]}\n");
+        Supermarket expected = new SupermarketStreamLoader(file.toString()).load();
+        LazySupermarket lazy = LazySupermarket.open(file.toString());
+        assertEquals(expected.findTotalRevenueInCents(), lazy.findTotalRevenueInCents());
+        assertEquals(400, lazy.findTotalRevenueInCents());
+        assertEquals(expected.getRevenueByZipcodeInCents(), lazy.getRevenueByZipcodeInCents());
+        assertEquals(300, lazy.findMostPayingCustomer().calculateTotalBillInCents()); // The built customer has the same price.
+
+        Path badTime = directory.resolve("badTime.txt");
+        Files.writeString(badTime, header + "{\"queuedAt\":\"noon\",\"zipCode\":\"1015MF\",\"itemsCart\":[]}\n");
+        assertNull(LazySupermarket.open(badTime.toString()));
+    }
+
+    @Test
+    void t068_billIndexTakesInAddedCustomersLikeANewOne() {
+        BillIndex before = supermarket5.getBillIndex();
+        Supermarket rebuilt = new SupermarketStreamLoader("src/main/resources/jambi5Json.txt").load();
+        Product product = supermarket5.getProducts().iterator().next();
+        for (int i = 0; i < 4; i++) { // Equal bills, added out of queuedAt order.
+            for (Supermarket target : List.of(supermarket5, rebuilt)) {
+                Customer customer = new Customer(LocalTime.of(23, 0).minusMinutes(i), "1016DK");
+                customer.addToCart(product, 1 + i % 2);
+                target.addCustomer(customer);
+            }
+        }
+        BillIndex merged = supermarket5.getBillIndex();
+        assertEquals(supermarket5.getCustomers().size(), merged.size());
+        assertEquals(before.size() + 4, merged.size());
+        assertEquals(rebuilt.findTopPayingCustomers(merged.size()), merged.getTopPayingCustomers(merged.size()));
+        for (int percentile = 0; percentile <= 100; percentile += 10) {
+            assertEquals(rebuilt.getBillIndex().getPercentileInCents(percentile), merged.getPercentileInCents(percentile));
+        }
+
+        supermarket5.getCustomers().remove(supermarket5.getCustomers().iterator().next()); // After a removal the index is sorted again.
+        assertEquals(merged.size() - 1, supermarket5.getBillIndex().size());
+    }
+
+    @Test
+    void t069_cartChangesOnlyRefreshTheSupermarketOfTheCustomer() {
+        Product bread = getProductByCode(supermarket5, "BRO001");
+        BillIndex otherIndex = supermarket1.getBillIndex();
+        supermarket1.useIncrementalStatistics(true);
+        SupermarketStatistics otherStatistics = supermarket1.getStatistics();
+
+        Customer customer = supermarket5.getCustomers().iterator().next();
+        BillIndex index = supermarket5.getBillIndex();
+        customer.addToCart(bread, 1);
+        assertNotSame(index, supermarket5.getBillIndex());
+        assertSame(otherIndex, supermarket1.getBillIndex());
+        assertSame(otherStatistics, supermarket1.getStatistics());
+
+        supermarket5.getCustomers().remove(customer); // Once removed, its cart changes don't concern the supermarket anymore.
+        index = supermarket5.getBillIndex();
+        customer.addToCart(bread, 1);
+        assertSame(index, supermarket5.getBillIndex());
+    }
+
+    @Test
+    void t070_streamLoaderAcceptsNullFields(@TempDir Path directory) throws IOException {
+        String header = "Supermarket\n{\"name\":null,\"openTime\":\"12:00:00\",\"closingTime\":null}\nProducts\n"
+                + "{\"code\":\"A1\",\"description\":null,\"price\":1.50}\nCustomers\n";
+        Path file = directory.resolve("nulls.txt");
+        Files.writeString(file, header
+                + "{\"queuedAt\":\"12:01:00\",\"zipCode\":null,\"itemsCart\":[[{\"code\":\"A1\",\"description\":null,\"price\":1.50},2]]}\n"
+                + "{\"queuedAt\":\"12:02:00\",\"zipCode\":\"1016DK\",\"itemsCart\":[[{\"description\":\"No code\",\"price\":null},1]]}\n");
+        Supermarket loaded = new SupermarketStreamLoader(file.toString()).load();
+        assertNull(loaded.getName());
+        assertNull(loaded.getClosingTime());
+        assertNull(loaded.getProduct("A1").getDescription());
+        Customer first = loaded.getCustomers().iterator().next();
+        assertNull(first.getZipCode());
+        assertEquals(300, first.calculateTotalBillInCents());
+        assertEquals(2, loaded.getCustomers().size());
+
+        Path badAmount = directory.resolve("badAmount.txt");
+        Files.writeString(badAmount, header + "{\"queuedAt\":\"12:01:00\",\"zipCode\":\"1016DK\",\"itemsCart\":[[{\"code\":\"A1\"},null]]}\n");
+        assertNull(new SupermarketStreamLoader(badAmount.toString()).load());
+    }
+
+    @Test
+    void t071_truncatedSnapshotIsNotLoaded(@TempDir Path directory) throws IOException {
+        Path snapshotFile = directory.resolve("jambi5.snapshot");
+        assertTrue(new SupermarketSnapshot(snapshotFile.toString()).write(supermarket5));
+        byte[] content = Files.readAllBytes(snapshotFile);
+        Path truncated = directory.resolve("truncated.snapshot");
+        for (int length = content.length - 1; length > 4; length -= 13) { // Cuts off numbers, strings and whole customers.
+            Files.write(truncated, Arrays.copyOf(content, length));
+            assertNull(new SupermarketSnapshot(truncated.toString()).load(), "length " + length);
+        }
+    }
+
+    @Test
+    void t072_loadersReturnNullForABadCustomerLine(@TempDir Path directory) throws IOException {
+        String content = Files.readString(Path.of("src/main/resources/jambiBigJson.txt"));
+        int middle = content.indexOf("\"queuedAt\":\"", content.length() / 2) + "\"queuedAt\":\"".length();
+        Path file = directory.resolve("badLine.txt");
+        Files.writeString(file, content.substring(0, middle) + "noon" + content.substring(content.indexOf('"', middle)));
+
+        assertNull(new SupermarketStreamLoader(file.toString()).load());
+        assertNull(new ParallelSupermarketLoader(file.toString(), ForkJoinPool.commonPool()).setMinChunkSize(512).load());
+    }
+
+    @Test
+    void t073_zipCodeIndexWithManyPostcodesAndProductsKeepsOnlyCartEntries() {
+        Supermarket many = new Supermarket("Many", LocalTime.MIN, LocalTime.MAX);
+        Product[] products = new Product[1100];
+        for (int id = 0; id < products.length; id++) {
+            products[id] = new Product("P" + id, "Product " + id, 0.01 * (1 + id % 7));
+            many.getProducts().add(products[id]);
+        }
+        int firstCode = ZipCodeDictionary.encode("1000AA");
+        for (int i = 0; i < 16000; i++) { // 16001 rows x 1100 products is more than the dense table may have.
+            Customer customer = new Customer(LocalTime.ofSecondOfDay(i), ZipCodeDictionary.decode(firstCode + i));
+            customer.addToCart(products[i % products.length], 1 + i % 3);
+            customer.addToCart(products[(i * 7 + 1) % products.length], 2);
+            many.addCustomer(customer);
+        }
+        ZipCodeIndex index = many.getZipCodeIndex();
+        assertEquals(16000, index.size());
+
+        for (String[] range : new String[][] {{"1000", "1000"}, {"1003", "1010"}, {"1005C", "1005M"}, {"", ""}}) {
+            Map<Product, Integer> productsBought = new TreeMap<>();
+            long revenue = 0;
+            for (Customer customer : many.getCustomers()) {
+                String zipCode = customer.getZipCode();
+                if (zipCode.compareTo(range[0]) >= 0 && zipCode.substring(0, Math.min(range[1].length(), 6)).compareTo(range[1]) <= 0) {
+                    revenue += customer.calculateTotalBillInCents();
+                    customer.getItemsCart().forEach((product, units) -> productsBought.merge(product, units, Integer::sum));
+                }
+            }
+            assertEquals(revenue, index.getRevenueInCents(range[0], range[1]), range[0] + "-" + range[1]);
+            assertEquals(productsBought, new TreeMap<>(index.getNumberOfProductsBought(range[0], range[1])), range[0] + "-" + range[1]);
+        }
+    }
+}